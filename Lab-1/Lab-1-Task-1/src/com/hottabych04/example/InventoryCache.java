@@ -0,0 +1,84 @@
+package com.hottabych04.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Results of a previous scan keyed by file path.
+ * An entry is reused as long as the modification time and size of the file are unchanged,
+ * so only changed files have to be fingerprinted again.
+ */
+public class InventoryCache {
+    private static final int MAGIC = 0x494E5631; // "INV1"
+    // Marks an entry that was stored without a fingerprint
+    public static final long NO_FINGERPRINT = -1L;
+
+    public static class Entry {
+        public final long modifiedTime;
+        public final long size;
+        public final long fingerprint;
+
+        public Entry(long modifiedTime, long size, long fingerprint) {
+            this.modifiedTime = modifiedTime;
+            this.size = size;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public static InventoryCache load(Path cacheFile) throws IOException {
+        InventoryCache cache = new InventoryCache();
+        if (!Files.exists(cacheFile)) {
+            return cache;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                // Unknown format, start with an empty cache
+                return cache;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                cache.entries.put(path, new Entry(in.readLong(), in.readLong(), in.readLong()));
+            }
+        }
+        return cache;
+    }
+
+    public void save(Path cacheFile) throws IOException {
+        // Write to a temporary file first so a crash never leaves a half-written cache
+        Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().modifiedTime);
+                out.writeLong(e.getValue().size);
+                out.writeLong(e.getValue().fingerprint);
+            }
+        }
+        Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public void put(String path, Entry entry) {
+        entries.put(path, entry);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,94 @@
+package com.hottabych04.example;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totals of a directory scan. Every scan task fills its own report,
+ * the reports are merged when the tasks are joined.
+ */
+public class InventoryReport {
+    private long files;
+    private long bytes;
+    private long directories;
+    private long cacheHits;
+    private long fingerprinted;
+    private long errors;
+    // Extension -> {file count, total bytes}
+    private final Map<String, long[]> extensions = new HashMap<>();
+
+    void addFile(String fileName, long size, boolean cacheHit, boolean fingerprintComputed) {
+        files++;
+        bytes += size;
+        if (cacheHit) {
+            cacheHits++;
+        }
+        if (fingerprintComputed) {
+            fingerprinted++;
+        }
+        long[] stats = extensions.computeIfAbsent(extensionOf(fileName), k -> new long[2]);
+        stats[0]++;
+        stats[1] += size;
+    }
+
+    void addDirectory() {
+        directories++;
+    }
+
+    void addError() {
+        errors++;
+    }
+
+    void merge(InventoryReport other) {
+        files += other.files;
+        bytes += other.bytes;
+        directories += other.directories;
+        cacheHits += other.cacheHits;
+        fingerprinted += other.fingerprinted;
+        errors += other.errors;
+        for (Map.Entry<String, long[]> e : other.extensions.entrySet()) {
+            long[] stats = extensions.computeIfAbsent(e.getKey(), k -> new long[2]);
+            stats[0] += e.getValue()[0];
+            stats[1] += e.getValue()[1];
+        }
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.println("Каталогов: " + directories);
+        out.println("Файлов: " + files);
+        out.println("Общий размер в байтах: " + bytes);
+        out.println("Взято из кэша: " + cacheHits + ", вычислено отпечатков: " + fingerprinted);
+        if (errors > 0) {
+            out.println("Ошибок чтения: " + errors);
+        }
+        out.printf("Время сканирования: %.3f с (%.0f файлов/с)%n",
+                seconds, seconds > 0 ? files / seconds : 0.0);
+
+        List<Map.Entry<String, long[]>> sorted = new ArrayList<>(extensions.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+        out.println("Размер по расширениям:");
+        for (Map.Entry<String, long[]> e : sorted) {
+            out.printf("  %-12s %10d файлов %16d байт%n", e.getKey(), e.getValue()[0], e.getValue()[1]);
+        }
+    }
+
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot <= 0 || dot == fileName.length() - 1) {
+            return "(нет)";
+        }
+        return fileName.substring(dot + 1).toLowerCase();
+    }
+}
@@ -0,0 +1,133 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32C;
+
+/**
+ * Walks directory trees in parallel, one ForkJoin task per directory.
+ * Every entry is stat'ed once; the optional content fingerprint (CRC32C) is only
+ * computed for files whose modification time or size differ from the cache.
+ */
+public class InventoryScanner {
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+
+    private final InventoryCache cache;
+    // Entries seen by this scan, files that have disappeared are not carried over
+    private final InventoryCache updatedCache = new InventoryCache();
+    private final boolean fingerprint;
+    private final ForkJoinPool pool;
+
+    public InventoryScanner(InventoryCache cache, boolean fingerprint) {
+        this(cache, fingerprint, ForkJoinPool.commonPool());
+    }
+
+    public InventoryScanner(InventoryCache cache, boolean fingerprint, ForkJoinPool pool) {
+        this.cache = cache;
+        this.fingerprint = fingerprint;
+        this.pool = pool;
+    }
+
+    public InventoryReport scan(Path root) {
+        return pool.invoke(new DirectoryTask(root));
+    }
+
+    public InventoryCache getUpdatedCache() {
+        return updatedCache;
+    }
+
+    private class DirectoryTask extends RecursiveTask<InventoryReport> {
+        private final Path directory;
+
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected InventoryReport compute() {
+            InventoryReport report = new InventoryReport();
+            report.addDirectory();
+            List<DirectoryTask> subtasks = new ArrayList<>();
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        report.addError();
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        DirectoryTask task = new DirectoryTask(entry);
+                        task.fork();
+                        subtasks.add(task);
+                    } else if (attributes.isRegularFile()) {
+                        scanFile(entry, attributes, report);
+                    }
+                }
+            } catch (IOException e) {
+                report.addError();
+            }
+
+            for (DirectoryTask task : subtasks) {
+                report.merge(task.join());
+            }
+            return report;
+        }
+
+        private void scanFile(Path file, BasicFileAttributes attributes, InventoryReport report) {
+            String key = file.toAbsolutePath().toString();
+            long modifiedTime = attributes.lastModifiedTime().toMillis();
+            long size = attributes.size();
+
+            InventoryCache.Entry cached = cache.get(key);
+            boolean unchanged = cached != null && cached.modifiedTime == modifiedTime && cached.size == size;
+            boolean needsFingerprint = fingerprint
+                    && (!unchanged || cached.fingerprint == InventoryCache.NO_FINGERPRINT);
+
+            if (unchanged && !needsFingerprint) {
+                updatedCache.put(key, cached);
+                report.addFile(file.getFileName().toString(), size, true, false);
+                return;
+            }
+
+            long value = unchanged ? cached.fingerprint : InventoryCache.NO_FINGERPRINT;
+            boolean computed = false;
+            if (needsFingerprint) {
+                try {
+                    value = fingerprint(file);
+                    computed = true;
+                } catch (IOException e) {
+                    report.addError();
+                }
+            }
+            updatedCache.put(key, new InventoryCache.Entry(modifiedTime, size, value));
+            report.addFile(file.getFileName().toString(), size, unchanged, computed);
+        }
+    }
+
+    private static long fingerprint(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -8,6 +8,11 @@ import java.nio.file.Paths;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0) {
+            inventory(args);
+            return;
+        }
+
         String filePath = "Lab-1/Lab-1-Task-1/veni_vidi_vici.doc";
 
         try {
@@ -22,6 +27,43 @@ public class Main {
         }
     }
 
+    // Usage: java Main <directory> [cache_file] [--fingerprint]
+    private static void inventory(String[] args) {
+        Path root = Paths.get(args[0]);
+        Path cacheFile = null;
+        boolean fingerprint = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--fingerprint")) {
+                fingerprint = true;
+            } else {
+                cacheFile = Paths.get(args[i]);
+            }
+        }
+
+        if (!Files.isDirectory(root)) {
+            System.err.println("Каталог не найден: " + root);
+            return;
+        }
+
+        try {
+            InventoryCache cache = cacheFile != null ? InventoryCache.load(cacheFile) : new InventoryCache();
+            InventoryScanner scanner = new InventoryScanner(cache, fingerprint);
+
+            long start = System.nanoTime();
+            InventoryReport report = scanner.scan(root);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println("Каталог: " + root.toAbsolutePath());
+            report.print(System.out, elapsed);
+
+            if (cacheFile != null) {
+                scanner.getUpdatedCache().save(cacheFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка при работе с кэшем: " + e.getMessage());
+        }
+    }
+
     private static boolean checkFileExists(String filePath) {
         File file = new File(filePath);
         return file.exists() && !file.isDirectory();
@@ -0,0 +1,95 @@
+package com.hottabych04.example;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class BigramAccumulator implements ByteAccumulator {
+    // Index is (first << 8) | second
+    private final long[] counts = new long[65536];
+    // First and last byte of the covered range, -1 while nothing has been seen,
+    // needed to count the pair that spans two merged ranges
+    private int first = -1;
+    private int last = -1;
+
+    @Override
+    public String name() {
+        return "bigram";
+    }
+
+    @Override
+    public void update(byte[] data, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        int previous = last;
+        if (first < 0) {
+            first = data[offset] & 0xFF;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            int current = data[i] & 0xFF;
+            if (previous >= 0) {
+                counts[(previous << 8) | current]++;
+            }
+            previous = current;
+        }
+        last = previous;
+    }
+
+    @Override
+    public ByteAccumulator newPartial() {
+        return new BigramAccumulator();
+    }
+
+    @Override
+    public void merge(ByteAccumulator next) {
+        BigramAccumulator other = (BigramAccumulator) next;
+        if (other.first < 0) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        if (last >= 0) {
+            counts[(last << 8) | other.first]++;
+        }
+        if (first < 0) {
+            first = other.first;
+        }
+        last = other.last;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(counts, 0);
+        first = -1;
+        last = -1;
+    }
+
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeInt(first);
+        out.writeInt(last);
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    @Override
+    public void readState(DataInputStream in) throws IOException {
+        first = in.readInt();
+        last = in.readInt();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readLong();
+        }
+    }
+
+    public long count(int firstByte, int secondByte) {
+        return counts[((firstByte & 0xFF) << 8) | (secondByte & 0xFF)];
+    }
+
+    public long[] getCounts() {
+        return counts.clone();
+    }
+}
@@ -0,0 +1,31 @@
+package com.hottabych04.example;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A statistic computed over a byte stream in a single pass.
+ * The pipeline feeds each file range to its own partial accumulator and then
+ * merges the partials in file order, so implementations must not assume that
+ * update() sees the whole stream.
+ */
+public interface ByteAccumulator {
+    // Name used to identify the accumulator in the persisted state
+    String name();
+
+    void update(byte[] data, int offset, int length);
+
+    // Creates an empty accumulator of the same kind for another range of the stream
+    ByteAccumulator newPartial();
+
+    // Appends the range covered by next, which directly follows the range of this accumulator
+    void merge(ByteAccumulator next);
+
+    // Clears the accumulated state
+    void reset();
+
+    void writeState(DataOutputStream out) throws IOException;
+
+    void readState(DataInputStream in) throws IOException;
+}
@@ -0,0 +1,18 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ByteHistogram {
+    public static long[] count(Path path) throws IOException {
+        return count(path, ForkJoinPool.commonPool());
+    }
+
+    public static long[] count(Path path, ForkJoinPool pool) throws IOException {
+        FrequencyAccumulator frequency = new FrequencyAccumulator();
+        new StatisticsPipeline(List.of(frequency), pool).run(path);
+        return frequency.getCounts();
+    }
+}
@@ -0,0 +1,102 @@
+package com.hottabych04.example;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class FrequencyAccumulator implements ByteAccumulator {
+    private final long[] counts = new long[256];
+
+    @Override
+    public String name() {
+        return "frequency";
+    }
+
+    @Override
+    public void update(byte[] data, int offset, int length) {
+        // Count into int[] and flush, a single call never exceeds Integer.MAX_VALUE bytes
+        int[] local = new int[256];
+        for (int i = offset; i < offset + length; i++) {
+            local[data[i] & 0xFF]++;
+        }
+        for (int i = 0; i < 256; i++) {
+            counts[i] += local[i];
+        }
+    }
+
+    @Override
+    public ByteAccumulator newPartial() {
+        return new FrequencyAccumulator();
+    }
+
+    @Override
+    public void merge(ByteAccumulator next) {
+        long[] other = ((FrequencyAccumulator) next).counts;
+        for (int i = 0; i < 256; i++) {
+            counts[i] += other[i];
+        }
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(counts, 0);
+    }
+
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    @Override
+    public void readState(DataInputStream in) throws IOException {
+        for (int i = 0; i < 256; i++) {
+            counts[i] = in.readLong();
+        }
+    }
+
+    public long[] getCounts() {
+        return counts.clone();
+    }
+
+    public long total() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Shannon entropy in bits per byte, 8.0 for perfectly uniform data
+    public double entropy() {
+        long total = total();
+        if (total == 0) {
+            return 0.0;
+        }
+        double entropy = 0.0;
+        for (long count : counts) {
+            if (count > 0) {
+                double p = (double) count / total;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy / Math.log(2);
+    }
+
+    // Pearson chi-square statistic against the uniform distribution (255 degrees of freedom)
+    public double chiSquare() {
+        long total = total();
+        if (total == 0) {
+            return 0.0;
+        }
+        double expected = total / 256.0;
+        double chiSquare = 0.0;
+        for (long count : counts) {
+            double diff = count - expected;
+            chiSquare += diff * diff / expected;
+        }
+        return chiSquare;
+    }
+}
@@ -1,17 +1,32 @@
 package com.hottabych04.example;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
-        String filename = "Lab-1/Lab-1-Task-2/file.txt";
-        int[] frequency = new int[256];
+        String filename = args.length > 0 ? args[0] : "Lab-1/Lab-1-Task-2/file.txt";
+        // With a state file only the bytes appended since the previous run are read
+        String stateFile = args.length > 1 ? args[1] : null;
 
-        try (FileInputStream fis = new FileInputStream(filename)) {
-            int byteRead;
-            while ((byteRead = fis.read()) != -1) {
-                frequency[byteRead]++;
+        FrequencyAccumulator frequencyAccumulator = new FrequencyAccumulator();
+        BigramAccumulator bigramAccumulator = new BigramAccumulator();
+        StatisticsPipeline pipeline = new StatisticsPipeline(List.of(frequencyAccumulator, bigramAccumulator));
+
+        try {
+            Path path = Paths.get(filename);
+            long start = System.nanoTime();
+            long read;
+            if (stateFile != null) {
+                read = pipeline.runIncremental(path, Paths.get(stateFile));
+            } else {
+                pipeline.run(path);
+                read = pipeline.getProcessed();
             }
+            long elapsed = System.nanoTime() - start;
+            long[] frequency = frequencyAccumulator.getCounts();
 
             // Print results
             System.out.println("Byte frequency in file: " + filename);
@@ -22,8 +37,35 @@ public class Main {
                 }
             }
 
+            System.out.printf("Total bytes: %d%n", frequencyAccumulator.total());
+            System.out.printf("Shannon entropy: %.6f bits/byte%n", frequencyAccumulator.entropy());
+            System.out.printf("Chi-square (255 d.f.): %.2f%n", frequencyAccumulator.chiSquare());
+            printTopBigrams(bigramAccumulator, 10);
+
+            double seconds = elapsed / 1e9;
+            System.out.printf("Processed %d bytes in %.3f s (%.2f MB/s)%n",
+                    read, seconds, seconds > 0 ? read / seconds / (1024 * 1024) : 0.0);
+
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
         }
     }
+
+    private static void printTopBigrams(BigramAccumulator bigrams, int limit) {
+        long[] counts = bigrams.getCounts();
+        System.out.println("Most frequent bigrams:");
+        for (int n = 0; n < limit; n++) {
+            int best = -1;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0 && (best < 0 || counts[i] > counts[best])) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                return;
+            }
+            System.out.printf("  0x%02X 0x%02X: %d times%n", best >> 8, best & 0xFF, counts[best]);
+            counts[best] = 0;
+        }
+    }
 }
@@ -0,0 +1,192 @@
+package com.hottabych04.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs several accumulators over a file in one read pass.
+ * The file is memory-mapped in windows that are processed in parallel,
+ * every window gets its own partial accumulators which are merged in file order.
+ */
+public class StatisticsPipeline {
+    // Size of a single memory-mapped window processed by one task
+    private static final long CHUNK_SIZE = 16L * 1024 * 1024;
+    // Size of the heap buffer the mapped window is copied through
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int STATE_MAGIC = 0x42535431; // "BST1"
+
+    private final List<ByteAccumulator> accumulators;
+    private final ForkJoinPool pool;
+    private long processed;
+
+    public StatisticsPipeline(List<ByteAccumulator> accumulators) {
+        this(accumulators, ForkJoinPool.commonPool());
+    }
+
+    public StatisticsPipeline(List<ByteAccumulator> accumulators, ForkJoinPool pool) {
+        this.accumulators = accumulators;
+        this.pool = pool;
+    }
+
+    // Number of file bytes the accumulators currently cover
+    public long getProcessed() {
+        return processed;
+    }
+
+    // Scans the whole file into the accumulators
+    public void run(Path path) throws IOException {
+        resetAccumulators();
+        scan(path, 0);
+    }
+
+    /**
+     * Scans only the bytes appended since the previous run.
+     * The accumulator state and the processed length are restored from stateFile
+     * and written back after the scan. If the file has shrunk or the state does not
+     * match the configured accumulators, the whole file is scanned again.
+     *
+     * @return number of bytes read in this run
+     */
+    public long runIncremental(Path path, Path stateFile) throws IOException {
+        long from = Files.exists(stateFile) && loadState(stateFile) ? processed : 0;
+        if (from > Files.size(path)) {
+            // The file was truncated or replaced, the saved state is useless
+            from = 0;
+        }
+        if (from == 0) {
+            resetAccumulators();
+        }
+        long read = scan(path, from);
+        saveState(stateFile);
+        return read;
+    }
+
+    private long scan(Path path, long from) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > from) {
+                ByteAccumulator[] partials;
+                try {
+                    partials = pool.invoke(new ScanTask(channel, from, size));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                for (int i = 0; i < partials.length; i++) {
+                    accumulators.get(i).merge(partials[i]);
+                }
+            }
+            processed = size;
+            return size - from;
+        }
+    }
+
+    private void resetAccumulators() {
+        for (ByteAccumulator accumulator : accumulators) {
+            accumulator.reset();
+        }
+        processed = 0;
+    }
+
+    private boolean loadState(Path stateFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            if (in.readInt() != STATE_MAGIC || in.readInt() != accumulators.size()) {
+                return false;
+            }
+            long savedLength = in.readLong();
+            for (ByteAccumulator accumulator : accumulators) {
+                if (!accumulator.name().equals(in.readUTF())) {
+                    resetAccumulators();
+                    return false;
+                }
+                accumulator.readState(in);
+            }
+            processed = savedLength;
+            return true;
+        }
+    }
+
+    private void saveState(Path stateFile) throws IOException {
+        // Write to a temporary file first so a crash never leaves a half-written state
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(STATE_MAGIC);
+            out.writeInt(accumulators.size());
+            out.writeLong(processed);
+            for (ByteAccumulator accumulator : accumulators) {
+                out.writeUTF(accumulator.name());
+                accumulator.writeState(out);
+            }
+        }
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private class ScanTask extends RecursiveTask<ByteAccumulator[]> {
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+
+        ScanTask(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ByteAccumulator[] compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return scanChunk();
+            }
+
+            // Split on a chunk boundary so every leaf maps a full window
+            long chunks = (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            long middle = from + (chunks / 2) * CHUNK_SIZE;
+            ScanTask left = new ScanTask(channel, from, middle);
+            ScanTask right = new ScanTask(channel, middle, to);
+            right.fork();
+            ByteAccumulator[] result = left.compute();
+            ByteAccumulator[] rightResult = right.join();
+            for (int i = 0; i < result.length; i++) {
+                result[i].merge(rightResult[i]);
+            }
+            return result;
+        }
+
+        private ByteAccumulator[] scanChunk() {
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            ByteAccumulator[] partials = new ByteAccumulator[accumulators.size()];
+            for (int i = 0; i < partials.length; i++) {
+                partials[i] = accumulators.get(i).newPartial();
+            }
+
+            // Every accumulator sees the same copied block, so the file is read only once
+            byte[] bytes = new byte[(int) Math.min(COPY_BUFFER_SIZE, to - from)];
+            while (buffer.hasRemaining()) {
+                int length = Math.min(bytes.length, buffer.remaining());
+                buffer.get(bytes, 0, length);
+                for (ByteAccumulator partial : partials) {
+                    partial.update(bytes, 0, length);
+                }
+            }
+            return partials;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.hottabych04.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Applies a 256-byte substitution key to whole buffers.
+ * Use forKey() to get the fastest implementation available in the running JVM.
+ */
+public interface ByteTranslator {
+    // Until C2 compiles it the vector path runs interpreted, which costs about a second,
+    // so it is only chosen by forInput() when the input is large enough to win that back
+    long VECTOR_MIN_BYTES = 1L << 30;
+
+    void translate(byte[] data, int offset, int length);
+
+    // Translates the bytes between position and limit in place, position is not changed
+    void translate(ByteBuffer buffer);
+
+    static ByteTranslator forKey(byte[] key) {
+        if (VectorSupport.AVAILABLE) {
+            return VectorSupport.create(key);
+        }
+        return new ScalarTranslator(key);
+    }
+
+    static ByteTranslator forInput(byte[] key, long inputSize) {
+        return inputSize >= VECTOR_MIN_BYTES ? forKey(key) : new ScalarTranslator(key);
+    }
+
+    static ByteTranslator scalar(byte[] key) {
+        return new ScalarTranslator(key);
+    }
+
+    class VectorSupport {
+        private static final String IMPLEMENTATION = "com.hottabych04.example.VectorTranslator";
+        // Set -Dsubstitution.vector=false to force the scalar path
+        private static final boolean AVAILABLE = detect();
+
+        private static boolean detect() {
+            if (!Boolean.parseBoolean(System.getProperty("substitution.vector", "true"))) {
+                return false;
+            }
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return false;
+            }
+            try {
+                return (Boolean) Class.forName(IMPLEMENTATION).getMethod("isSupported").invoke(null);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return false;
+            }
+        }
+
+        private static ByteTranslator create(byte[] key) {
+            try {
+                return (ByteTranslator) Class.forName(IMPLEMENTATION)
+                        .getConstructor(byte[].class)
+                        .newInstance((Object) key);
+            } catch (ReflectiveOperationException e) {
+                return new ScalarTranslator(key);
+            }
+        }
+    }
+}
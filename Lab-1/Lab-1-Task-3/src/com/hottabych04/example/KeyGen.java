@@ -1,18 +1,28 @@
 package com.hottabych04.example;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.Random;
 
 public class KeyGen {
     public static void generateKey(String filename) throws IOException {
-        // Create array with values 0-255
         byte[] key = new byte[256];
+        fillPermutation(key, new Random());
+
+        // Write to file
+        try (FileOutputStream fos = new FileOutputStream(filename)) {
+            fos.write(key);
+        }
+    }
+
+    static void fillPermutation(byte[] key, Random rnd) {
+        // Create array with values 0-255
         for (int i = 0; i < 256; i++) {
             key[i] = (byte) i;
         }
 
         // Shuffle array using Fisher-Yates algorithm
-        Random rnd = new Random();
         for (int i = key.length - 1; i > 0; i--) {
             int index = rnd.nextInt(i + 1);
             // Swap elements
@@ -20,11 +30,23 @@ public class KeyGen {
             key[index] = key[i];
             key[i] = temp;
         }
+    }
 
-        // Write to file
-        try (FileOutputStream fos = new FileOutputStream(filename)) {
-            fos.write(key);
+    // Checks that the 256 bytes starting at offset contain every value exactly once
+    static boolean isPermutation(ByteBuffer buffer, int offset) {
+        long w0 = 0, w1 = 0, w2 = 0, w3 = 0;
+        for (int i = offset; i < offset + 256; i++) {
+            int value = buffer.get(i) & 0xFF;
+            long bit = 1L << value;
+            switch (value >>> 6) {
+                case 0: w0 |= bit; break;
+                case 1: w1 |= bit; break;
+                case 2: w2 |= bit; break;
+                default: w3 |= bit; break;
+            }
         }
+        // 256 values that set all 256 bits can have no duplicates
+        return (w0 & w1 & w2 & w3) == -1L;
     }
 
     public static boolean verifyKey(String filename) throws IOException {
@@ -37,20 +59,21 @@ public class KeyGen {
             }
         }
 
-        // Check if each value appears exactly once
-        boolean[] found = new boolean[256];
+        // Check if each value appears exactly once, 4x64-bit bitset of seen values
+        long[] found = new long[4];
         for (byte b : key) {
             int index = b & 0xFF;  // Convert to unsigned
-            if (found[index]) {
+            long bit = 1L << index;
+            if ((found[index >>> 6] & bit) != 0) {
                 System.out.println("Error: Value " + index + " appears multiple times");
                 return false;
             }
-            found[index] = true;
+            found[index >>> 6] |= bit;
         }
 
         // Check if any values are missing
         for (int i = 0; i < 256; i++) {
-            if (!found[i]) {
+            if ((found[i >>> 6] & (1L << i)) == 0) {
                 System.out.println("Error: Value " + i + " is missing");
                 return false;
             }
@@ -60,6 +83,11 @@ public class KeyGen {
     }
 
     public static void main(String[] args) {
+        if (args.length == 3 && args[0].equals("ring")) {
+            generateRing(args[1], Integer.parseInt(args[2]));
+            return;
+        }
+
         try {
             String filename = "Lab-1/Lab-1-Task-3/key.txt";
             generateKey(filename);
@@ -72,4 +100,25 @@ public class KeyGen {
             System.err.println("Error: " + e.getMessage());
         }
     }
+
+    private static void generateRing(String filename, int keyCount) {
+        try {
+            long start = System.nanoTime();
+            KeyRing.generate(Paths.get(filename), keyCount);
+            long generated = System.nanoTime();
+
+            try (KeyRing ring = KeyRing.open(Paths.get(filename))) {
+                int invalid = ring.verify();
+                long verified = System.nanoTime();
+                if (invalid >= 0) {
+                    System.out.println("Error: Key " + invalid + " in keyring is invalid");
+                    return;
+                }
+                System.out.printf("Keyring '%s' with %d keys generated in %.1f ms and verified in %.1f ms%n",
+                        filename, keyCount, (generated - start) / 1e6, (verified - generated) / 1e6);
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
 }
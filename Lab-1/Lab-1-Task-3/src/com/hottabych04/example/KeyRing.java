@@ -0,0 +1,159 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Memory-mapped file holding many substitution keys.
+ *
+ * Layout: a 16-byte header (magic, version, key count, slot size) followed by one
+ * 512-byte slot per key ID. A slot is the 256-byte encryption key followed by its
+ * precomputed 256-byte inverse, so a key is found by ID with a single offset calculation.
+ */
+public class KeyRing implements AutoCloseable {
+    private static final int MAGIC = 0x534B5231; // "SKR1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int KEY_SIZE = 256;
+    private static final int SLOT_SIZE = 2 * KEY_SIZE;
+    private static final int MAX_KEYS = (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int keyCount;
+
+    private KeyRing(FileChannel channel, MappedByteBuffer buffer, int keyCount) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.keyCount = keyCount;
+    }
+
+    public static KeyRing open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Keyring file is too short");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(12) != SLOT_SIZE) {
+                throw new IOException("Unsupported keyring format");
+            }
+            int keyCount = buffer.getInt(8);
+            if (keyCount < 0 || keyCount > MAX_KEYS || size != HEADER_SIZE + (long) keyCount * SLOT_SIZE) {
+                throw new IOException("Keyring size does not match its header");
+            }
+            return new KeyRing(channel, buffer, keyCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Generates keyCount random keys and their inverses, slots are filled in parallel
+    public static void generate(Path path, int keyCount) throws IOException {
+        if (keyCount < 0 || keyCount > MAX_KEYS) {
+            throw new IllegalArgumentException("Key count must be between 0 and " + MAX_KEYS);
+        }
+        long size = HEADER_SIZE + (long) keyCount * SLOT_SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, keyCount);
+            buffer.putInt(12, SLOT_SIZE);
+
+            ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(SecureRandom::new);
+            IntStream.range(0, keyCount).parallel().forEach(id -> {
+                byte[] key = new byte[KEY_SIZE];
+                KeyGen.fillPermutation(key, random.get());
+                byte[] inverse = new byte[KEY_SIZE];
+                for (int i = 0; i < KEY_SIZE; i++) {
+                    inverse[key[i] & 0xFF] = (byte) i;
+                }
+                int offset = slotOffset(id);
+                buffer.put(offset, key);
+                buffer.put(offset + KEY_SIZE, inverse);
+            });
+            buffer.force();
+        }
+    }
+
+    public int size() {
+        return keyCount;
+    }
+
+    // Read-only view of the encryption key in the mapped file, nothing is copied
+    public ByteBuffer encryptionKey(int id) {
+        return slice(slotOffset(checkId(id)));
+    }
+
+    // Read-only view of the precomputed decryption key in the mapped file, nothing is copied
+    public ByteBuffer decryptionKey(int id) {
+        return slice(slotOffset(checkId(id)) + KEY_SIZE);
+    }
+
+    /**
+     * Key and its stored inverse, the inverse is taken from the slot instead of being recomputed.
+     * The slot is checked first, so a corrupted slot is never used to encrypt.
+     */
+    public SubstitutionKey key(int id) throws IOException {
+        if (!isValidSlot(slotOffset(checkId(id)))) {
+            throw new IOException("Key " + id + " in keyring is invalid");
+        }
+        return SubstitutionKey.fromPair(encryptionKey(id), decryptionKey(id));
+    }
+
+    /**
+     * Checks every slot: the encryption key must be a permutation and the stored
+     * decryption key must be its inverse.
+     *
+     * @return the first invalid key ID, or -1 if the whole ring is valid
+     */
+    public int verify() {
+        return IntStream.range(0, keyCount).parallel()
+                .filter(id -> !isValidSlot(slotOffset(id)))
+                .min()
+                .orElse(-1);
+    }
+
+    private boolean isValidSlot(int offset) {
+        if (!KeyGen.isPermutation(buffer, offset)) {
+            return false;
+        }
+        for (int i = 0; i < KEY_SIZE; i++) {
+            int encrypted = buffer.get(offset + i) & 0xFF;
+            if ((buffer.get(offset + KEY_SIZE + encrypted) & 0xFF) != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ByteBuffer slice(int offset) {
+        return buffer.slice(offset, KEY_SIZE).asReadOnlyBuffer();
+    }
+
+    private int checkId(int id) {
+        if (id < 0 || id >= keyCount) {
+            throw new IndexOutOfBoundsException("Key ID " + id + " is not in the keyring of " + keyCount + " keys");
+        }
+        return id;
+    }
+
+    private static int slotOffset(int id) {
+        return HEADER_SIZE + id * SLOT_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
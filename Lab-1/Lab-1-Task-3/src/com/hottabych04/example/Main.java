@@ -1,11 +1,32 @@
 package com.hottabych04.example;
 
 import java.io.*;
+import java.nio.file.Paths;
 
 public class Main {
     public static void main(String[] args) {
-        if (args.length != 1 || (!args[0].equals("encrypt") && !args[0].equals("decrypt"))) {
-            System.out.println("Usage: java FileEncryption <encrypt|decrypt>");
+        boolean useStdio = false;
+        String ringPath = null;
+        int keyId = -1;
+        boolean validArgs = args.length >= 1 && (args[0].equals("encrypt") || args[0].equals("decrypt"));
+        for (int i = 1; validArgs && i < args.length; i++) {
+            if (args[i].equals("-")) {
+                useStdio = true;
+            } else if (args[i].equals("--ring") && i + 2 < args.length) {
+                ringPath = args[++i];
+                try {
+                    keyId = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    validArgs = false;
+                }
+            } else {
+                validArgs = false;
+            }
+        }
+        if (!validArgs) {
+            System.out.println("Usage: java FileEncryption <encrypt|decrypt> [-] [--ring <keyring> <key_id>]");
+            System.out.println("  -                         process standard input to standard output");
+            System.out.println("  --ring <keyring> <key_id> use a key from a keyring made by 'KeyGen ring'");
             return;
         }
 
@@ -13,47 +34,48 @@ public class Main {
         String inputPath = "Lab-1/Lab-1-Task-3/input.txt";
         String encryptedPath = "Lab-1/Lab-1-Task-3/encrypted.txt";
         String decryptedPath = "Lab-1/Lab-1-Task-3/decrypted.txt";
+        boolean encrypt = args[0].equals("encrypt");
 
         try {
-            byte[] encryptionKey = loadKey(keyPath);
-            byte[] key = args[0].equals("encrypt") ? encryptionKey : createDecryptionKey(encryptionKey);
-            if (args[0].equals("encrypt")) {
+            SubstitutionKey substitutionKey;
+            if (ringPath != null) {
+                // The key and its inverse come straight from the ring slot
+                try (KeyRing ring = KeyRing.open(Paths.get(ringPath))) {
+                    int invalid = ring.verify();
+                    if (invalid >= 0) {
+                        System.err.println("Error: Key " + invalid + " in keyring is invalid");
+                        return;
+                    }
+                    substitutionKey = ring.key(keyId);
+                }
+            } else {
+                substitutionKey = SubstitutionKey.load(Paths.get(keyPath));
+            }
+            if (useStdio) {
+                processStream(System.in, System.out,
+                        encrypt ? substitutionKey.encryptor() : substitutionKey.decryptor());
+                return;
+            }
+
+            byte[] key = encrypt ? substitutionKey.getEncryptionKey() : substitutionKey.getDecryptionKey();
+            if (encrypt) {
                 processFile(inputPath, encryptedPath, key);
             } else {
                 processFile(encryptedPath, decryptedPath, key);
             }
             System.out.println("Operation completed successfully");
-        } catch (IOException e) {
+        } catch (IOException | IndexOutOfBoundsException e) {
             System.err.println("Error: " + e.getMessage());
         }
     }
 
-    private static byte[] loadKey(String keyFile) throws IOException {
-        byte[] key = new byte[256];
-        try (FileInputStream fis = new FileInputStream(keyFile)) {
-            if (fis.read(key) != 256) {
-                throw new IOException("Файл ключа должен содержать ровно 256 байт.");
-            }
-        }
-        return key;
-    }
-
-    private static byte[] createDecryptionKey(byte[] encryptionKey) {
-        byte[] decryptionKey = new byte[256];
-        for (int i = 0; i < 256; i++) {
-            decryptionKey[encryptionKey[i] & 0xFF] = (byte) i;
-        }
-        return decryptionKey;
-    }
-
     private static void processFile(String inputFile, String outputFile, byte[] key) throws IOException {
-        try (FileInputStream fis = new FileInputStream(inputFile);
-             FileOutputStream fos = new FileOutputStream(outputFile)) {
+        SubstitutionEngine.processFile(Paths.get(inputFile), Paths.get(outputFile), key);
+    }
 
-            int b;
-            while ((b = fis.read()) != -1) {
-                fos.write(key[b & 0xFF]);
-            }
+    private static void processStream(InputStream input, OutputStream output, ByteTranslator translator) throws IOException {
+        try (OutputStream out = new SubstitutionOutputStream(new BufferedOutputStream(output), translator)) {
+            input.transferTo(out);
         }
     }
 }
@@ -0,0 +1,34 @@
+package com.hottabych04.example;
+
+import java.nio.ByteBuffer;
+
+public class ScalarTranslator implements ByteTranslator {
+    private final byte[] key;
+
+    public ScalarTranslator(byte[] key) {
+        if (key.length != 256) {
+            throw new IllegalArgumentException("Key must be exactly 256 bytes");
+        }
+        this.key = key.clone();
+    }
+
+    @Override
+    public void translate(byte[] data, int offset, int length) {
+        byte[] key = this.key;
+        for (int i = offset; i < offset + length; i++) {
+            data[i] = key[data[i] & 0xFF];
+        }
+    }
+
+    @Override
+    public void translate(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            translate(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        byte[] key = this.key;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            buffer.put(i, key[buffer.get(i) & 0xFF]);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class SubstitutionEngine {
+    // Size of the direct buffer used for every read/write call
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    // Files larger than this are split into ranges processed in parallel
+    private static final long PARALLEL_THRESHOLD = 64L * 1024 * 1024;
+    // Size of a range processed by one parallel task
+    private static final long RANGE_SIZE = 32L * 1024 * 1024;
+
+    public static void processFile(Path inputFile, Path outputFile, byte[] key) throws IOException {
+        processFile(inputFile, outputFile, key, ForkJoinPool.commonPool());
+    }
+
+    public static void processFile(Path inputFile, Path outputFile, byte[] key, ForkJoinPool pool) throws IOException {
+        try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = input.size();
+            ByteTranslator translator = ByteTranslator.forInput(key, size);
+            if (size < PARALLEL_THRESHOLD) {
+                processRange(input, output, 0, size, translator);
+                return;
+            }
+
+            // Preallocate the output so every range can be written at its own position
+            output.write(ByteBuffer.allocate(1), size - 1);
+            try {
+                pool.invoke(new RangeTask(input, output, 0, size, translator));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static void processRange(FileChannel input, FileChannel output,
+                                     long from, long to, ByteTranslator translator) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_SIZE, Math.max(to - from, 1)));
+        long position = from;
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), to - position));
+            int read = input.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at position " + position);
+            }
+            buffer.flip();
+            translator.translate(buffer);
+            while (buffer.hasRemaining()) {
+                position += output.write(buffer, position);
+            }
+        }
+    }
+
+    private static class RangeTask extends RecursiveAction {
+        private final FileChannel input;
+        private final FileChannel output;
+        private final long from;
+        private final long to;
+        private final ByteTranslator translator;
+
+        RangeTask(FileChannel input, FileChannel output, long from, long to, ByteTranslator translator) {
+            this.input = input;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+            this.translator = translator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= RANGE_SIZE) {
+                try {
+                    processRange(input, output, from, to, translator);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+
+            long ranges = (to - from + RANGE_SIZE - 1) / RANGE_SIZE;
+            long middle = from + (ranges / 2) * RANGE_SIZE;
+            invokeAll(new RangeTask(input, output, from, middle, translator),
+                    new RangeTask(input, output, middle, to, translator));
+        }
+    }
+}
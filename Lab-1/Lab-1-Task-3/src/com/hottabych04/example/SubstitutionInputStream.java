@@ -0,0 +1,39 @@
+package com.hottabych04.example;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Translates everything read from the underlying stream.
+ * The substitution is stateless, so skip, mark and reset of the underlying stream keep working.
+ */
+public class SubstitutionInputStream extends FilterInputStream {
+    private final ByteTranslator translator;
+    private final byte[] single = new byte[1];
+
+    public SubstitutionInputStream(InputStream in, ByteTranslator translator) {
+        super(in);
+        this.translator = translator;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            return b;
+        }
+        single[0] = (byte) b;
+        translator.translate(single, 0, 1);
+        return single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            translator.translate(b, off, read);
+        }
+        return read;
+    }
+}
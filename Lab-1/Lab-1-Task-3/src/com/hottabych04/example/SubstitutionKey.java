@@ -0,0 +1,108 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A loaded 256-byte substitution key together with its inverse.
+ * The inverse table and the translators for both directions are built once
+ * per key, so the key can be shared by any number of streams and channels.
+ */
+public class SubstitutionKey {
+    private final byte[] encryptionKey;
+    private final byte[] decryptionKey;
+    private volatile ByteTranslator encryptor;
+    private volatile ByteTranslator decryptor;
+
+    public SubstitutionKey(byte[] encryptionKey) {
+        if (encryptionKey.length != 256) {
+            throw new IllegalArgumentException("Key must be exactly 256 bytes");
+        }
+        this.encryptionKey = encryptionKey.clone();
+        this.decryptionKey = createDecryptionKey(this.encryptionKey);
+    }
+
+    private SubstitutionKey(byte[] encryptionKey, byte[] decryptionKey) {
+        this.encryptionKey = encryptionKey;
+        this.decryptionKey = decryptionKey;
+    }
+
+    /**
+     * Key with an already known inverse, e.g. a KeyRing slot. The pair is taken as is,
+     * the inverse is not recomputed; KeyRing.key checks the slot before calling this.
+     */
+    public static SubstitutionKey fromPair(ByteBuffer encryptionKey, ByteBuffer decryptionKey) {
+        if (encryptionKey.remaining() != 256 || decryptionKey.remaining() != 256) {
+            throw new IllegalArgumentException("Key and inverse must be exactly 256 bytes");
+        }
+        byte[] encryption = new byte[256];
+        byte[] decryption = new byte[256];
+        encryptionKey.duplicate().get(encryption);
+        decryptionKey.duplicate().get(decryption);
+        return new SubstitutionKey(encryption, decryption);
+    }
+
+    public static SubstitutionKey load(Path keyFile) throws IOException {
+        byte[] key = new byte[256];
+        try (InputStream in = Files.newInputStream(keyFile)) {
+            if (in.readNBytes(key, 0, 256) != 256) {
+                throw new IOException("Файл ключа должен содержать ровно 256 байт.");
+            }
+        }
+        return new SubstitutionKey(key);
+    }
+
+    public byte[] getEncryptionKey() {
+        return encryptionKey.clone();
+    }
+
+    public byte[] getDecryptionKey() {
+        return decryptionKey.clone();
+    }
+
+    // Scalar translators: a stream's length is unknown up front, and the vector path
+    // only pays off on inputs of ByteTranslator.VECTOR_MIN_BYTES and more
+    public ByteTranslator encryptor() {
+        ByteTranslator translator = encryptor;
+        if (translator == null) {
+            translator = ByteTranslator.scalar(encryptionKey);
+            encryptor = translator;
+        }
+        return translator;
+    }
+
+    public ByteTranslator decryptor() {
+        ByteTranslator translator = decryptor;
+        if (translator == null) {
+            translator = ByteTranslator.scalar(decryptionKey);
+            decryptor = translator;
+        }
+        return translator;
+    }
+
+    // Translator for about inputSize bytes, chosen by ByteTranslator.forInput
+    public ByteTranslator encryptor(long inputSize) {
+        return inputSize >= ByteTranslator.VECTOR_MIN_BYTES ? ByteTranslator.forKey(encryptionKey) : encryptor();
+    }
+
+    public ByteTranslator decryptor(long inputSize) {
+        return inputSize >= ByteTranslator.VECTOR_MIN_BYTES ? ByteTranslator.forKey(decryptionKey) : decryptor();
+    }
+
+    private static byte[] createDecryptionKey(byte[] encryptionKey) {
+        byte[] decryptionKey = new byte[256];
+        boolean[] found = new boolean[256];
+        for (int i = 0; i < 256; i++) {
+            int value = encryptionKey[i] & 0xFF;
+            if (found[value]) {
+                throw new IllegalArgumentException("Key is not a permutation: value " + value + " appears multiple times");
+            }
+            found[value] = true;
+            decryptionKey[value] = (byte) i;
+        }
+        return decryptionKey;
+    }
+}
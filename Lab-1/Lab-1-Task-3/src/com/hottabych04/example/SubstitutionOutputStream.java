@@ -0,0 +1,40 @@
+package com.hottabych04.example;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Translates everything written before passing it to the underlying stream.
+ * The caller's array is never modified, data is translated in a private buffer.
+ */
+public class SubstitutionOutputStream extends FilterOutputStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ByteTranslator translator;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    public SubstitutionOutputStream(OutputStream out, ByteTranslator translator) {
+        super(out);
+        this.translator = translator;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        buffer[0] = (byte) b;
+        translator.translate(buffer, 0, 1);
+        out.write(buffer[0]);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int length = Math.min(len, buffer.length);
+            System.arraycopy(b, off, buffer, 0, length);
+            translator.translate(buffer, 0, length);
+            out.write(buffer, 0, length);
+            off += length;
+            len -= length;
+        }
+    }
+}
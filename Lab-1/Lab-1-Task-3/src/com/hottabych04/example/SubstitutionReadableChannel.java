@@ -0,0 +1,38 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+public class SubstitutionReadableChannel implements ReadableByteChannel {
+    private final ReadableByteChannel channel;
+    private final ByteTranslator translator;
+
+    public SubstitutionReadableChannel(ReadableByteChannel channel, ByteTranslator translator) {
+        this.channel = channel;
+        this.translator = translator;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int read = channel.read(dst);
+        if (read > 0) {
+            // Translate only the bytes that have just been read
+            ByteBuffer view = dst.duplicate();
+            view.position(start).limit(start + read);
+            translator.translate(view);
+        }
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
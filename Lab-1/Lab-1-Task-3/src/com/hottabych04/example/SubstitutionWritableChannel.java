@@ -0,0 +1,52 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Translates everything written before passing it to the underlying channel.
+ * The source buffer is never modified, data is translated in a private direct buffer
+ * which is always written out completely.
+ */
+public class SubstitutionWritableChannel implements WritableByteChannel {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteTranslator translator;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public SubstitutionWritableChannel(WritableByteChannel channel, ByteTranslator translator) {
+        this.channel = channel;
+        this.translator = translator;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int written = 0;
+        while (src.hasRemaining()) {
+            int length = Math.min(src.remaining(), buffer.capacity());
+            ByteBuffer chunk = src.slice();
+            chunk.limit(length);
+            buffer.clear();
+            buffer.put(chunk).flip();
+            translator.translate(buffer);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            src.position(src.position() + length);
+            written += length;
+        }
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
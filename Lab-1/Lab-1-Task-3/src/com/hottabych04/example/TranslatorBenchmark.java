@@ -0,0 +1,132 @@
+package com.hottabych04.example;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the vectorized substitution against the scalar one and measures both.
+ * Run with --add-modules jdk.incubator.vector to enable the vector path.
+ */
+public class TranslatorBenchmark {
+    private static final int DATA_SIZE = 64 * 1024 * 1024;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        ByteTranslator best = ByteTranslator.forKey(identityKey());
+        System.out.println("Selected implementation: " + best.getClass().getSimpleName());
+
+        if (!verify()) {
+            System.out.println("Verification FAILED");
+            return;
+        }
+        System.out.println("Verification passed");
+
+        Random rnd = new Random(42);
+        byte[] key = randomKey(rnd);
+        byte[] data = new byte[DATA_SIZE];
+        rnd.nextBytes(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(DATA_SIZE);
+        direct.put(data).flip();
+
+        ByteTranslator scalar = ByteTranslator.scalar(key);
+        ByteTranslator selected = ByteTranslator.forKey(key);
+        System.out.printf("Scalar, heap:   %.2f GB/s%n", measure(scalar, data));
+        System.out.printf("Scalar, direct: %.2f GB/s%n", measure(scalar, direct));
+        if (selected instanceof ScalarTranslator) {
+            System.out.println("Vector path is not available in this JVM");
+            return;
+        }
+        System.out.printf("Vector, heap:   %.2f GB/s%n", measure(selected, data));
+        System.out.printf("Vector, direct: %.2f GB/s%n", measure(selected, direct));
+    }
+
+    // Every byte value through every key position, for the identity, the reversal and random keys
+    private static boolean verify() {
+        Random rnd = new Random(1);
+        byte[][] keys = new byte[34][];
+        keys[0] = identityKey();
+        keys[1] = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            keys[1][i] = (byte) (255 - i);
+        }
+        for (int k = 2; k < keys.length; k++) {
+            keys[k] = randomKey(rnd);
+        }
+
+        // Several copies of 0..255 with an odd tail so the scalar remainder is exercised too
+        byte[] input = new byte[256 * 5 + 77];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) i;
+        }
+
+        for (byte[] key : keys) {
+            for (int offset = 0; offset < 3; offset++) {
+                byte[] expected = input.clone();
+                byte[] actual = input.clone();
+                ByteTranslator.scalar(key).translate(expected, offset, expected.length - offset);
+                ByteTranslator.forKey(key).translate(actual, offset, actual.length - offset);
+                if (!Arrays.equals(expected, actual)) {
+                    return false;
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocateDirect(input.length);
+                buffer.put(input).flip().position(offset);
+                ByteTranslator.forKey(key).translate(buffer);
+                byte[] fromDirect = new byte[input.length];
+                buffer.get(0, fromDirect);
+                if (!Arrays.equals(expected, fromDirect)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double measure(ByteTranslator translator, byte[] data) {
+        // Warm-up so the JIT compiles the loop before timing
+        for (int i = 0; i < 3; i++) {
+            translator.translate(data, 0, data.length);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            translator.translate(data, 0, data.length);
+        }
+        return gigabytesPerSecond((long) data.length * ROUNDS, System.nanoTime() - start);
+    }
+
+    private static double measure(ByteTranslator translator, ByteBuffer buffer) {
+        for (int i = 0; i < 3; i++) {
+            translator.translate(buffer);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            translator.translate(buffer);
+        }
+        return gigabytesPerSecond((long) buffer.remaining() * ROUNDS, System.nanoTime() - start);
+    }
+
+    private static double gigabytesPerSecond(long bytes, long nanos) {
+        return bytes / (nanos / 1e9) / (1024.0 * 1024 * 1024);
+    }
+
+    private static byte[] identityKey() {
+        byte[] key = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            key[i] = (byte) i;
+        }
+        return key;
+    }
+
+    // Fisher-Yates shuffle, same as KeyGen.generateKey
+    private static byte[] randomKey(Random rnd) {
+        byte[] key = identityKey();
+        for (int i = key.length - 1; i > 0; i--) {
+            int index = rnd.nextInt(i + 1);
+            byte temp = key[index];
+            key[index] = key[i];
+            key[i] = temp;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,86 @@
+package com.hottabych04.example;
+
+import java.nio.ByteBuffer;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of the substitution.
+ * The key is split into 256 / LANES sub-tables of one vector each. The low bits of
+ * every input byte select the entry inside a sub-table with a lane shuffle, the high
+ * bits select which sub-table result is kept.
+ * Requires --add-modules jdk.incubator.vector, ByteTranslator.forKey() falls back to
+ * ScalarTranslator when the module is missing.
+ */
+public class VectorTranslator implements ByteTranslator {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int TABLES = 256 / Math.max(LANES, 1);
+    private static final int INDEX_BITS = Integer.numberOfTrailingZeros(Math.max(LANES, 1));
+    // Size of the heap block direct buffers are copied through
+    private static final int SCRATCH_SIZE = 8 * 1024;
+
+    private final ByteVector[] tables;
+    private final ScalarTranslator tail;
+
+    public VectorTranslator(byte[] key) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Vector species with " + LANES + " lanes is not supported");
+        }
+        this.tail = new ScalarTranslator(key);
+        this.tables = new ByteVector[TABLES];
+        for (int t = 0; t < TABLES; t++) {
+            tables[t] = ByteVector.fromArray(SPECIES, key, t * LANES);
+        }
+    }
+
+    // Shuffles narrower than 16 lanes would need more blends than the scalar loop costs
+    public static boolean isSupported() {
+        return LANES >= 16 && LANES <= 256;
+    }
+
+    @Override
+    public void translate(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int vectorEnd = offset + SPECIES.loopBound(length);
+        int i = offset;
+        for (; i < vectorEnd; i += LANES) {
+            translateVector(ByteVector.fromArray(SPECIES, data, i)).intoArray(data, i);
+        }
+        tail.translate(data, i, end - i);
+    }
+
+    @Override
+    public void translate(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            translate(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        byte[] scratch = new byte[Math.min(SCRATCH_SIZE, buffer.remaining())];
+        for (int index = buffer.position(); index < buffer.limit(); ) {
+            int length = Math.min(scratch.length, buffer.limit() - index);
+            buffer.get(index, scratch, 0, length);
+            translate(scratch, 0, length);
+            buffer.put(index, scratch, 0, length);
+            index += length;
+        }
+    }
+
+    private ByteVector translateVector(ByteVector input) {
+        VectorShuffle<Byte> shuffle = input.and((byte) (LANES - 1)).toShuffle();
+        if (TABLES == 1) {
+            return tables[0].rearrange(shuffle);
+        }
+        ByteVector high = input.lanewise(VectorOperators.LSHR, INDEX_BITS);
+        ByteVector result = tables[0].rearrange(shuffle);
+        for (int t = 1; t < TABLES; t++) {
+            VectorMask<Byte> selected = high.eq((byte) t);
+            result = result.blend(tables[t].rearrange(shuffle), selected);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.hottabych04.example;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасная гистограмма задержек с корзинами по степеням двойки миллисекунд:
+ * [0, 1), [1, 2), [2, 4), ... и последняя корзина для всего, что длиннее.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 20;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+
+    public void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int bucket = millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        counts.incrementAndGet(bucket);
+        totalNanos.add(nanos);
+        samples.increment();
+    }
+
+    public long getCount() {
+        return samples.sum();
+    }
+
+    public double getMeanMillis() {
+        long count = samples.sum();
+        return count == 0 ? 0.0 : totalNanos.sum() / 1e6 / count;
+    }
+
+    public void print(PrintStream out) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts.get(i);
+            if (count == 0) {
+                continue;
+            }
+            long from = i == 0 ? 0 : 1L << (i - 1);
+            String range = i == BUCKETS - 1 ? ">= " + from : from + ".." + (1L << i);
+            out.printf("  %12s мс: %d%n", range, count);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.hottabych04.example;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Выполняет независимую операцию над блоками 0..count-1 в пуле ForkJoin
+class ParallelBlocks {
+    // Блоки RSA дорогие, поэтому задача делится вплоть до одного блока
+    private static final int MIN_BLOCKS_PER_TASK = 1;
+
+    static void forEach(ForkJoinPool pool, int count, IntConsumer operation) {
+        if (count == 1) {
+            operation.accept(0);
+        } else if (count > 1) {
+            pool.invoke(new BlockTask(0, count, operation));
+        }
+    }
+
+    private static class BlockTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer operation;
+
+        BlockTask(int from, int to, IntConsumer operation) {
+            this.from = from;
+            this.to = to;
+            this.operation = operation;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_BLOCKS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    operation.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BlockTask(from, middle, operation), new BlockTask(middle, to, operation));
+        }
+    }
+}
@@ -1,26 +1,150 @@
 package com.hottabych04.example;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 
 public class RSA {
+    static final BigInteger PUBLIC_EXPONENT = BigInteger.valueOf(65537);
+    private static final String DEFAULT_KEY_FILE = "Lab-2/key.bin";
+
     private BigInteger n, d, e;
-    private int bitLength = 1024;
+    // Параметры для расшифрования по китайской теореме об остатках (CRT)
+    private BigInteger p, q, dP, dQ, qInv;
+    // Длина модуля n в битах, как и keySize в RSAKeyFactory
+    private int keySize = 2048;
+    private final SecureRandom random = new SecureRandom();
+    // Ослепление скрывает время операции с закрытым ключом от атак по времени
+    private boolean blinding = true;
+    // Пара множителей ослепления r^e и r^(-1); после каждого использования оба
+    // возводятся в квадрат, чтобы не искать новое r и обратный элемент на каждый вызов
+    private BigInteger blindingFactor, blindingInverse;
 
     public RSA() {
         generateKeys();
     }
 
+    // keySize - длина модуля n в битах, p и q вдвое короче
+    public RSA(int keySize) {
+        if (keySize < 64 || keySize % 2 != 0) {
+            throw new IllegalArgumentException("Длина ключа должна быть чётной и не меньше 64 бит");
+        }
+        this.keySize = keySize;
+        generateKeys();
+    }
+
+    // Ключи из готовых простых чисел p и q (например, найденных RSAKeyFactory), e = 65537
+    public RSA(BigInteger p, BigInteger q) {
+        if (!isValidPrimePair(p, q)) {
+            throw new IllegalArgumentException("p и q не подходят для ключа с e = 65537");
+        }
+        initKeys(p, q);
+        this.keySize = n.bitLength();
+    }
+
+    // Ключ из сохранённых компонентов (RSAKeyFile); без d и CRT-параметров доступно только шифрование
+    RSA(BigInteger n, BigInteger e, BigInteger d,
+        BigInteger p, BigInteger q, BigInteger dP, BigInteger dQ, BigInteger qInv) {
+        this.n = n;
+        this.e = e;
+        this.d = d;
+        this.p = p;
+        this.q = q;
+        this.dP = dP;
+        this.dQ = dQ;
+        this.qInv = qInv;
+        this.keySize = n.bitLength();
+    }
+
+    // Произведение двух простых по keySize / 2 бит примерно в половине случаев на бит короче
+    static boolean hasModulusLength(BigInteger p, BigInteger q, int keySize) {
+        return p.multiply(q).bitLength() == keySize;
+    }
+
+    static boolean isValidPrimePair(BigInteger p, BigInteger q) {
+        BigInteger phi = p.subtract(BigInteger.ONE).multiply(q.subtract(BigInteger.ONE));
+        // e должно быть взаимно простым с phi, иначе d не существует
+        return !p.equals(q) && phi.gcd(PUBLIC_EXPONENT).equals(BigInteger.ONE);
+    }
+
     private void generateKeys() {
-        SecureRandom r = new SecureRandom();
-        BigInteger p = BigInteger.probablePrime(bitLength, r);
-        BigInteger q = BigInteger.probablePrime(bitLength, r);
+        BigInteger p, q;
+        do {
+            p = BigInteger.probablePrime(keySize / 2, random);
+            q = BigInteger.probablePrime(keySize / 2, random);
+        } while (!isValidPrimePair(p, q) || !hasModulusLength(p, q, keySize));
+        initKeys(p, q);
+    }
+
+    private void initKeys(BigInteger p, BigInteger q) {
+        this.p = p;
+        this.q = q;
         n = p.multiply(q);
+        e = PUBLIC_EXPONENT;
         BigInteger phi = p.subtract(BigInteger.ONE).multiply(q.subtract(BigInteger.ONE));
-        e = BigInteger.valueOf(65537);
         d = e.modInverse(phi);
+        dP = d.mod(p.subtract(BigInteger.ONE));
+        dQ = d.mod(q.subtract(BigInteger.ONE));
+        qInv = q.modInverse(p);
+    }
+
+    public void setBlinding(boolean blinding) {
+        this.blinding = blinding;
+    }
+
+    // Операция с открытым ключом: c = m^e mod n
+    public BigInteger encryptRaw(BigInteger m) {
+        return m.modPow(e, n);
+    }
+
+    // Операция с закрытым ключом: m = c^d mod n, вычисляется по CRT
+    public BigInteger decryptRaw(BigInteger c) {
+        if (!hasPrivateKey()) {
+            throw new IllegalStateException("Закрытый ключ не загружен");
+        }
+        if (!blinding) {
+            return crt(c);
+        }
+        // Ослепление: m = (c * r^e)^d * r^(-1) mod n
+        BigInteger[] factors = nextBlindingFactors();
+        BigInteger blinded = c.multiply(factors[0]).mod(n);
+        return crt(blinded).multiply(factors[1]).mod(n);
+    }
+
+    private synchronized BigInteger[] nextBlindingFactors() {
+        if (blindingFactor == null) {
+            BigInteger r;
+            do {
+                r = new BigInteger(n.bitLength() - 1, random);
+            } while (r.signum() == 0 || !r.gcd(n).equals(BigInteger.ONE));
+            blindingFactor = r.modPow(e, n);
+            blindingInverse = r.modInverse(n);
+        } else {
+            blindingFactor = blindingFactor.multiply(blindingFactor).mod(n);
+            blindingInverse = blindingInverse.multiply(blindingInverse).mod(n);
+        }
+        return new BigInteger[]{blindingFactor, blindingInverse};
+    }
+
+    // Прямое возведение в степень d без CRT, оставлено для сравнения в RSABenchmark
+    BigInteger decryptRawWithoutCrt(BigInteger c) {
+        if (!hasPrivateKey()) {
+            throw new IllegalStateException("Закрытый ключ не загружен");
+        }
+        return c.modPow(d, n);
+    }
+
+    // Две экспоненты половинной длины вместо одной полной (алгоритм Гарнера)
+    private BigInteger crt(BigInteger c) {
+        BigInteger m1 = c.mod(p).modPow(dP, p);
+        BigInteger m2 = c.mod(q).modPow(dQ, q);
+        BigInteger h = qInv.multiply(m1.subtract(m2)).mod(p);
+        return m2.add(h.multiply(q));
     }
 
     // Шифрование сообщения с правильной обработкой байтов
@@ -32,14 +156,14 @@ public class RSA {
         if (m.compareTo(n) >= 0) {
             throw new IllegalArgumentException("Сообщение слишком длинное");
         }
-        BigInteger c = m.modPow(e, n);
+        BigInteger c = encryptRaw(m);
         return c.toByteArray();
     }
 
     // Расшифрование сообщения с правильной обработкой байтов
     public String decrypt(byte[] encryptedMessage) {
         BigInteger c = new BigInteger(encryptedMessage);
-        BigInteger m = c.modPow(d, n);
+        BigInteger m = decryptRaw(c);
 
         // Получаем байты из BigInteger, убирая ведущий нуль если он есть
         byte[] messageBytes = m.toByteArray();
@@ -54,13 +178,44 @@ public class RSA {
         return new BigInteger[]{e, n};
     }
 
-    private BigInteger[] getPrivateKey() {
+    public BigInteger[] getPrivateKey() {
         return new BigInteger[]{d, n};
     }
 
+    public int getKeySize() {
+        return keySize;
+    }
+
+    public boolean hasPrivateKey() {
+        return d != null && p != null;
+    }
+
+    // p, q, dP, dQ, qInv
+    BigInteger[] getCrtComponents() {
+        return new BigInteger[]{p, q, dP, dQ, qInv};
+    }
+
     public static void main(String[] args) {
+        boolean fromStore = args.length == 3 && args[0].equals("--store");
+        if (args.length > 1 && !fromStore) {
+            System.out.println("Использование: RSA [файл_ключа] | --store <хранилище> <id_ключа>");
+            System.out.println("  файл_ключа  загружается, а если его нет - создаётся новый ключ (по умолчанию " + DEFAULT_KEY_FILE + ")");
+            System.out.println("  --store     ключ из хранилища RSAKeyStore по ID");
+            return;
+        }
         try {
-            RSA rsa = new RSA();
+            long start = System.nanoTime();
+            RSA rsa = fromStore
+                    ? loadFromStore(Paths.get(args[1]), Long.parseLong(args[2]))
+                    : loadOrCreate(Paths.get(args.length == 1 ? args[0] : DEFAULT_KEY_FILE));
+            if (rsa == null) {
+                return;
+            }
+            if (!rsa.hasPrivateKey()) {
+                System.out.println("Для расшифрования нужен закрытый ключ");
+                return;
+            }
+            System.out.printf("Ключ %d бит готов за %.1f мс%n", rsa.getKeySize(), (System.nanoTime() - start) / 1e6);
 
             // Тестовое сообщение
             String message = "Привет, мир!";
@@ -74,12 +229,58 @@ public class RSA {
             String decrypted = rsa.decrypt(encrypted);
             System.out.println("Расшифрованное сообщение: " + decrypted);
 
+            // Длинное сообщение шифруется поблочно
+            String longMessage = message.repeat(100);
+            RSAStreamCipher streamCipher = new RSAStreamCipher(rsa);
+            byte[] encryptedLong = streamCipher.encrypt(longMessage.getBytes(StandardCharsets.UTF_8));
+            String decryptedLong = new String(streamCipher.decrypt(encryptedLong), StandardCharsets.UTF_8);
+            System.out.println("Длинное сообщение (" + longMessage.length() + " символов) расшифровано верно: "
+                    + decryptedLong.equals(longMessage));
+
         } catch (Exception e) {
             System.out.println("Произошла ошибка: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    // Ключ из файла; новый ключ генерируется фабрикой и сохраняется, только если файла нет
+    private static RSA loadOrCreate(Path keyFile) throws IOException {
+        if (Files.exists(keyFile)) {
+            System.out.println("Ключ загружается из " + keyFile);
+            return RSAKeyFile.read(keyFile);
+        }
+        RSA rsa;
+        try (RSAKeyFactory keyFactory = new RSAKeyFactory(2048, 0, 0)) {
+            rsa = keyFactory.take();
+            keyFactory.printMetrics(System.out);
+        }
+        RSAKeyFile.writePrivate(rsa, keyFile);
+        System.out.println("Новый ключ сохранён в " + keyFile);
+        return rsa;
+    }
+
+    private static RSA loadFromStore(Path storeFile, long keyId) throws IOException {
+        try (RSAKeyStore store = RSAKeyStore.open(storeFile)) {
+            RSA rsa = store.get(keyId);
+            if (rsa == null) {
+                System.out.println("В хранилище " + storeFile + " нет ключа " + keyId);
+            }
+            return rsa;
+        }
+    }
+
+    // Записывает неотрицательное число в dst[off, off + len) с ведущими нулями
+    static void writeFixed(BigInteger value, byte[] dst, int off, int len) {
+        byte[] bytes = value.toByteArray();
+        // toByteArray может добавить ведущий нулевой байт знака
+        int skip = bytes.length > len ? bytes.length - len : 0;
+        int pad = len - (bytes.length - skip);
+        for (int i = 0; i < pad; i++) {
+            dst[off + i] = 0;
+        }
+        System.arraycopy(bytes, skip, dst, off + pad, bytes.length - skip);
+    }
+
     // Вспомогательный метод для вывода байтов в шестнадцатеричном формате
     private static String bytesToHex(byte[] bytes) {
         StringBuilder result = new StringBuilder();
@@ -0,0 +1,166 @@
+package com.hottabych04.example;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Пакетное шифрование и расшифрование множества коротких записей (токенов, сеансовых ключей).
+ * Записи обрабатываются параллельно в пуле ForkJoin, порядок результатов совпадает с порядком входа.
+ * Числа строятся прямо из входного массива по смещению, а результаты пишутся
+ * в выходной массив фиксированной ширины без промежуточных копий каждой записи.
+ */
+public class RSABatch {
+    private final RSA rsa;
+    private final ForkJoinPool pool;
+    private final BigInteger n;
+    private final int modulusBytes;
+
+    public RSABatch(RSA rsa) {
+        this(rsa, ForkJoinPool.commonPool());
+    }
+
+    public RSABatch(RSA rsa, ForkJoinPool pool) {
+        this.rsa = rsa;
+        this.pool = pool;
+        this.n = rsa.getPublicKey()[1];
+        this.modulusBytes = (n.bitLength() + 7) / 8;
+    }
+
+    // Длина каждого блока шифротекста
+    public int getBlockSize() {
+        return modulusBytes;
+    }
+
+    // Каждая запись шифруется в блок ровно getBlockSize() байт
+    public List<byte[]> encryptAll(List<byte[]> records) {
+        byte[][] results = new byte[records.size()][];
+        ParallelBlocks.forEach(pool, results.length, i -> {
+            byte[] record = records.get(i);
+            byte[] block = new byte[modulusBytes];
+            RSA.writeFixed(rsa.encryptRaw(toMessage(record, 0, record.length)), block, 0, modulusBytes);
+            results[i] = block;
+        });
+        return Arrays.asList(results);
+    }
+
+    // Расшифрованные записи без ведущих нулей, как в RSA.decrypt
+    public List<byte[]> decryptAll(List<byte[]> blocks) {
+        byte[][] results = new byte[blocks.size()][];
+        ParallelBlocks.forEach(pool, results.length, i -> {
+            BigInteger m = rsa.decryptRaw(toCipher(blocks.get(i), 0, blocks.get(i).length));
+            byte[] bytes = m.toByteArray();
+            results[i] = bytes.length > 1 && bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+        });
+        return Arrays.asList(results);
+    }
+
+    // Расшифрованные записи фиксированной длины plainLength, ведущие нули сохраняются
+    public List<byte[]> decryptAll(List<byte[]> blocks, int plainLength) {
+        byte[][] results = new byte[blocks.size()][];
+        ParallelBlocks.forEach(pool, results.length, i -> {
+            BigInteger m = rsa.decryptRaw(toCipher(blocks.get(i), 0, blocks.get(i).length));
+            results[i] = new byte[plainLength];
+            writePlain(m, results[i], 0, plainLength, i);
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Шифрует записи в формате [длина: 2 байта][данные] от позиции до предела буфера.
+     * Результат - подряд идущие блоки по getBlockSize() байт.
+     */
+    public ByteBuffer encryptAll(ByteBuffer framedRecords) {
+        ByteBuffer input = framedRecords.slice();
+        byte[] source;
+        int base;
+        if (input.hasArray()) {
+            source = input.array();
+            base = input.arrayOffset();
+        } else {
+            source = new byte[input.remaining()];
+            input.duplicate().get(source);
+            base = 0;
+        }
+
+        // Смещения записей, чтобы дальше обрабатывать их независимо
+        List<int[]> records = new ArrayList<>();
+        int position = 0;
+        while (position < input.limit()) {
+            if (position + 2 > input.limit()) {
+                throw new IllegalArgumentException("Обрезанный заголовок записи на позиции " + position);
+            }
+            int length = input.getShort(position) & 0xFFFF;
+            if (position + 2 + length > input.limit()) {
+                throw new IllegalArgumentException("Обрезанная запись на позиции " + position);
+            }
+            records.add(new int[]{base + position + 2, length});
+            position += 2 + length;
+        }
+
+        byte[] output = new byte[records.size() * modulusBytes];
+        ParallelBlocks.forEach(pool, records.size(), i -> {
+            int[] record = records.get(i);
+            BigInteger c = rsa.encryptRaw(toMessage(source, record[0], record[1]));
+            RSA.writeFixed(c, output, i * modulusBytes, modulusBytes);
+        });
+        framedRecords.position(framedRecords.limit());
+        return ByteBuffer.wrap(output);
+    }
+
+    /**
+     * Расшифровывает подряд идущие блоки по getBlockSize() байт от позиции до предела буфера.
+     * Результат - записи фиксированной длины plainLength подряд.
+     */
+    public ByteBuffer decryptAll(ByteBuffer blocks, int plainLength) {
+        ByteBuffer input = blocks.slice();
+        if (input.remaining() % modulusBytes != 0) {
+            throw new IllegalArgumentException("Длина входа не кратна размеру блока");
+        }
+        byte[] source;
+        int base;
+        if (input.hasArray()) {
+            source = input.array();
+            base = input.arrayOffset();
+        } else {
+            source = new byte[input.remaining()];
+            input.duplicate().get(source);
+            base = 0;
+        }
+
+        int count = input.remaining() / modulusBytes;
+        byte[] output = new byte[count * plainLength];
+        ParallelBlocks.forEach(pool, count, i -> {
+            BigInteger m = rsa.decryptRaw(toCipher(source, base + i * modulusBytes, modulusBytes));
+            writePlain(m, output, i * plainLength, plainLength, i);
+        });
+        blocks.position(blocks.limit());
+        return ByteBuffer.wrap(output);
+    }
+
+    private BigInteger toMessage(byte[] source, int offset, int length) {
+        BigInteger m = new BigInteger(1, source, offset, length);
+        if (m.compareTo(n) >= 0) {
+            throw new IllegalArgumentException("Сообщение слишком длинное");
+        }
+        return m;
+    }
+
+    private BigInteger toCipher(byte[] source, int offset, int length) {
+        BigInteger c = new BigInteger(1, source, offset, length);
+        if (c.compareTo(n) >= 0) {
+            throw new IllegalArgumentException("Неверный блок шифротекста");
+        }
+        return c;
+    }
+
+    private static void writePlain(BigInteger m, byte[] dst, int offset, int length, int index) {
+        if ((m.bitLength() + 7) / 8 > length) {
+            throw new IllegalArgumentException("Запись " + index + " длиннее " + length + " байт");
+        }
+        RSA.writeFixed(m, dst, offset, length);
+    }
+}
@@ -0,0 +1,83 @@
+package com.hottabych04.example;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Операций в секунду для пакетного API при размерах пакета от 1 до 100 000
+ * в сравнении с поочерёдными вызовами RSA.encrypt/decrypt.
+ * Аргументы: [длина модуля в битах] [максимальный размер пакета].
+ */
+public class RSABatchBenchmark {
+    private static final int RECORD_SIZE = 32;
+
+    public static void main(String[] args) {
+        int keySize = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int maxBatch = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        RSA rsa = new RSA(keySize);
+        RSABatch batch = new RSABatch(rsa);
+        SecureRandom random = new SecureRandom();
+
+        // Поочерёдные вызовы строкового API для сравнения
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            strings.add("token-" + random.nextLong());
+        }
+        List<byte[]> encryptedStrings = new ArrayList<>();
+        long start = System.nanoTime();
+        for (String s : strings) {
+            encryptedStrings.add(rsa.encrypt(s));
+        }
+        double singleEncrypt = opsPerSecond(strings.size(), System.nanoTime() - start);
+        start = System.nanoTime();
+        for (byte[] c : encryptedStrings) {
+            rsa.decrypt(c);
+        }
+        double singleDecrypt = opsPerSecond(strings.size(), System.nanoTime() - start);
+        System.out.printf("Ключ %d бит, поочерёдно: шифрование %.0f оп/с, расшифрование %.0f оп/с%n",
+                keySize, singleEncrypt, singleDecrypt);
+
+        System.out.printf("%10s %18s %18s %18s%n", "Пакет", "encrypt List, оп/с", "encrypt Buffer, оп/с", "decrypt, оп/с");
+        for (int size = 1; size <= maxBatch; size *= 10) {
+            List<byte[]> records = new ArrayList<>(size);
+            ByteBuffer framed = ByteBuffer.allocate(size * (2 + RECORD_SIZE));
+            for (int i = 0; i < size; i++) {
+                byte[] record = new byte[RECORD_SIZE];
+                random.nextBytes(record);
+                records.add(record);
+                framed.putShort((short) RECORD_SIZE).put(record);
+            }
+            framed.flip();
+
+            // Прогрев
+            batch.encryptAll(records.subList(0, Math.min(size, 100)));
+
+            start = System.nanoTime();
+            List<byte[]> encrypted = batch.encryptAll(records);
+            double encryptList = opsPerSecond(size, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            ByteBuffer encryptedBuffer = batch.encryptAll(framed);
+            double encryptBuffer = opsPerSecond(size, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            ByteBuffer decrypted = batch.decryptAll(encryptedBuffer, RECORD_SIZE);
+            double decrypt = opsPerSecond(size, System.nanoTime() - start);
+
+            byte[] first = new byte[RECORD_SIZE];
+            decrypted.get(first);
+            if (!java.util.Arrays.equals(first, records.get(0)) || encrypted.size() != size) {
+                System.out.println("Ошибка: результат расшифрования не совпадает");
+                return;
+            }
+            System.out.printf("%10d %18.0f %18.0f %18.0f%n", size, encryptList, encryptBuffer, decrypt);
+        }
+    }
+
+    private static double opsPerSecond(int operations, long nanos) {
+        return operations / (nanos / 1e9);
+    }
+}
@@ -0,0 +1,51 @@
+package com.hottabych04.example;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * Сравнение задержки расшифрования: прямое c^d mod n и CRT (с ослеплением и без)
+ * для модулей 1024, 2048 и 4096 бит.
+ */
+public class RSABenchmark {
+    private static final int WARMUP = 50;
+
+    public static void main(String[] args) {
+        SecureRandom random = new SecureRandom();
+        int[] modulusSizes = {1024, 2048, 4096};
+
+        System.out.printf("%-8s %14s %14s %14s %10s%n", "Модуль", "c^d mod n, мкс", "CRT, мкс", "CRT+blind, мкс", "Ускорение");
+        for (int modulusBits : modulusSizes) {
+            RSA rsa = new RSA(modulusBits);
+            BigInteger n = rsa.getPublicKey()[1];
+            BigInteger m = new BigInteger(n.bitLength() - 1, random);
+            BigInteger c = rsa.encryptRaw(m);
+            int iterations = modulusBits >= 4096 ? 50 : 300;
+
+            if (!rsa.decryptRawWithoutCrt(c).equals(m) || !rsa.decryptRaw(c).equals(m)) {
+                System.out.println("Ошибка: результаты расшифрования не совпадают");
+                return;
+            }
+
+            double plain = measure(iterations, () -> rsa.decryptRawWithoutCrt(c));
+            rsa.setBlinding(false);
+            double crt = measure(iterations, () -> rsa.decryptRaw(c));
+            rsa.setBlinding(true);
+            double blinded = measure(iterations, () -> rsa.decryptRaw(c));
+
+            System.out.printf("%-8d %14.1f %14.1f %14.1f %9.2fx%n", modulusBits, plain, crt, blinded, plain / crt);
+        }
+    }
+
+    // Среднее время одного вызова в микросекундах
+    private static double measure(int iterations, Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / 1e3 / iterations;
+    }
+}
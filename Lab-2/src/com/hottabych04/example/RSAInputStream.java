@@ -0,0 +1,104 @@
+package com.hottabych04.example;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Поток, расшифровывающий данные в формате RSAStreamCipher.
+ * Кадры читаются пачками по BATCH_BLOCKS и расшифровываются параллельно.
+ */
+public class RSAInputStream extends FilterInputStream {
+    private static final int BATCH_BLOCKS = 256;
+
+    private final RSAStreamCipher cipher;
+    private final byte[] frames;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean headerRead;
+    private boolean eof;
+
+    public RSAInputStream(InputStream in, RSAStreamCipher cipher) {
+        super(in);
+        this.cipher = cipher;
+        this.frames = new byte[BATCH_BLOCKS * cipher.getFrameSize()];
+        this.buffer = new byte[BATCH_BLOCKS * cipher.getPlainBlockSize()];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int length = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int length = (int) Math.min(n - skipped, limit - position);
+            position += length;
+            skipped += length;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            if (eof) {
+                return false;
+            }
+            if (!headerRead) {
+                byte[] header = in.readNBytes(RSAStreamCipher.HEADER_SIZE);
+                if (header.length == 0) {
+                    eof = true;
+                    return false;
+                }
+                if (header.length < RSAStreamCipher.HEADER_SIZE) {
+                    throw new IOException("Отсутствует заголовок");
+                }
+                cipher.checkHeader(header);
+                headerRead = true;
+            }
+
+            int read = in.readNBytes(frames, 0, frames.length);
+            if (read < frames.length) {
+                eof = true;
+            }
+            if (read % cipher.getFrameSize() != 0) {
+                throw new IOException("Длина шифротекста не кратна размеру кадра");
+            }
+            int count = read / cipher.getFrameSize();
+            cipher.plainLength(frames, 0, count);
+            limit = cipher.decryptFrames(frames, 0, count, buffer, 0);
+            position = 0;
+        }
+        return true;
+    }
+}
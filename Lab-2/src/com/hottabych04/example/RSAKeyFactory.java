@@ -0,0 +1,127 @@
+package com.hottabych04.example;
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фабрика ключей RSA с пулом заранее сгенерированных пар.
+ *
+ * Простые p и q ищутся одновременно. Фоновые потоки поддерживают пул заполненным,
+ * take() отдаёт готовую пару без ожидания; если пул пуст, пара генерируется
+ * в вызывающем потоке и это учитывается как промах.
+ */
+public class RSAKeyFactory implements AutoCloseable {
+    private final int keySize;
+    private final BlockingQueue<RSA> pool;
+    private final Executor primeExecutor;
+    private final SecureRandom random = new SecureRandom();
+    private final Thread[] refillThreads;
+    private volatile boolean closed;
+
+    private final LatencyHistogram generationLatency = new LatencyHistogram();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // keySize - длина модуля n в битах
+    public RSAKeyFactory(int keySize, int poolCapacity, int refillThreadCount) {
+        this(keySize, poolCapacity, refillThreadCount, ForkJoinPool.commonPool());
+    }
+
+    public RSAKeyFactory(int keySize, int poolCapacity, int refillThreadCount, Executor primeExecutor) {
+        if (keySize < 64 || keySize % 2 != 0) {
+            throw new IllegalArgumentException("Длина ключа должна быть чётной и не меньше 64 бит");
+        }
+        this.keySize = keySize;
+        this.pool = new ArrayBlockingQueue<>(Math.max(poolCapacity, 1));
+        this.primeExecutor = primeExecutor;
+        this.refillThreads = new Thread[poolCapacity > 0 ? refillThreadCount : 0];
+        for (int i = 0; i < refillThreads.length; i++) {
+            refillThreads[i] = new Thread(this::refill, "rsa-key-refill-" + i);
+            refillThreads[i].setDaemon(true);
+            refillThreads[i].start();
+        }
+    }
+
+    // Готовая пара из пула или, если пул пуст, новая
+    public RSA take() {
+        RSA rsa = pool.poll();
+        if (rsa != null) {
+            hits.increment();
+            return rsa;
+        }
+        misses.increment();
+        return generate();
+    }
+
+    // Генерирует новую пару, минуя пул; p и q ищутся параллельно
+    public RSA generate() {
+        long start = System.nanoTime();
+        int primeBits = keySize / 2;
+        while (true) {
+            // p ищется в пуле, q - в текущем потоке
+            CompletableFuture<BigInteger> pFuture = CompletableFuture.supplyAsync(
+                    () -> BigInteger.probablePrime(primeBits, random), primeExecutor);
+            BigInteger q = BigInteger.probablePrime(primeBits, random);
+            BigInteger p = pFuture.join();
+            if (RSA.isValidPrimePair(p, q) && RSA.hasModulusLength(p, q, keySize)) {
+                RSA rsa = new RSA(p, q);
+                generationLatency.record(System.nanoTime() - start);
+                return rsa;
+            }
+        }
+    }
+
+    public int getKeySize() {
+        return keySize;
+    }
+
+    public int getPoolDepth() {
+        return pool.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public LatencyHistogram getGenerationLatency() {
+        return generationLatency;
+    }
+
+    public void printMetrics(PrintStream out) {
+        out.println("Размер ключа: " + keySize + " бит");
+        out.println("Ключей в пуле: " + getPoolDepth());
+        out.println("Выдано из пула: " + getHits() + ", промахов: " + getMisses());
+        out.printf("Сгенерировано: %d, средняя задержка генерации: %.1f мс%n",
+                generationLatency.getCount(), generationLatency.getMeanMillis());
+        generationLatency.print(out);
+    }
+
+    private void refill() {
+        try {
+            while (!closed) {
+                pool.put(generate());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread thread : refillThreads) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Компактный двоичный формат ключа RSA.
+ *
+ * Запись: MAGIC (4 байта), тип (1 байт: 1 - открытый, 2 - закрытый с CRT), затем
+ * компоненты как беззнаковые числа в виде [длина: 2 байта][байты big-endian]:
+ * открытый ключ - n, e; закрытый - n, e, d, p, q, dP, dQ, qInv.
+ * Все компоненты хранятся готовыми, поэтому загрузка не требует вычислений.
+ * Файл с закрытым ключом создаётся с правами rw------- там, где есть права POSIX.
+ */
+public class RSAKeyFile {
+    static final int MAGIC = 0x52534B31; // "RSK1"
+    private static final byte TYPE_PUBLIC = 1;
+    private static final byte TYPE_PRIVATE = 2;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+    public static void writePublic(RSA rsa, Path path) throws IOException {
+        write(encode(rsa, false), path, false);
+    }
+
+    public static void writePrivate(RSA rsa, Path path) throws IOException {
+        write(encode(rsa, true), path, true);
+    }
+
+    public static RSA read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Файл ключа слишком большой");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // читаем файл целиком
+            }
+            buffer.flip();
+            return decode(buffer);
+        }
+    }
+
+    static ByteBuffer encode(RSA rsa, boolean includePrivate) {
+        if (includePrivate && !rsa.hasPrivateKey()) {
+            throw new IllegalArgumentException("Закрытый ключ не загружен");
+        }
+        BigInteger[] publicKey = rsa.getPublicKey();
+        BigInteger[] components;
+        if (includePrivate) {
+            BigInteger[] crt = rsa.getCrtComponents();
+            components = new BigInteger[]{publicKey[1], publicKey[0], rsa.getPrivateKey()[0],
+                    crt[0], crt[1], crt[2], crt[3], crt[4]};
+        } else {
+            components = new BigInteger[]{publicKey[1], publicKey[0]};
+        }
+
+        byte[][] magnitudes = new byte[components.length][];
+        int size = 5;
+        for (int i = 0; i < components.length; i++) {
+            magnitudes[i] = magnitude(components[i]);
+            size += 2 + magnitudes[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.put(includePrivate ? TYPE_PRIVATE : TYPE_PUBLIC);
+        for (byte[] magnitude : magnitudes) {
+            buffer.putShort((short) magnitude.length);
+            buffer.put(magnitude);
+        }
+        return buffer.flip();
+    }
+
+    // Разбирает одну запись начиная с текущей позиции буфера
+    static RSA decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Неизвестный формат файла ключа");
+            }
+            byte type = buffer.get();
+            if (type == TYPE_PUBLIC) {
+                BigInteger n = component(buffer);
+                BigInteger e = component(buffer);
+                return new RSA(n, e, null, null, null, null, null, null);
+            }
+            if (type == TYPE_PRIVATE) {
+                return new RSA(component(buffer), component(buffer), component(buffer), component(buffer),
+                        component(buffer), component(buffer), component(buffer), component(buffer));
+            }
+            throw new IOException("Неизвестный тип ключа: " + type);
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IOException("Файл ключа повреждён", e);
+        }
+    }
+
+    private static BigInteger component(ByteBuffer buffer) {
+        byte[] magnitude = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(magnitude);
+        return new BigInteger(1, magnitude);
+    }
+
+    private static byte[] magnitude(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] trimmed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return bytes;
+    }
+
+    // ownerOnly - файл доступен только владельцу, права меняются до записи ключа
+    static void write(ByteBuffer buffer, Path path, boolean ownerOnly) throws IOException {
+        Set<OpenOption> options = Set.of(StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        boolean posix = ownerOnly && path.getFileSystem().supportedFileAttributeViews().contains("posix");
+        FileAttribute<?>[] attributes = posix
+                ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(OWNER_ONLY)}
+                : new FileAttribute<?>[0];
+        try (FileChannel channel = FileChannel.open(path, options, attributes)) {
+            // Атрибут действует только при создании, у существующего файла права меняются явно
+            if (posix) {
+                Files.setPosixFilePermissions(path, OWNER_ONLY);
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
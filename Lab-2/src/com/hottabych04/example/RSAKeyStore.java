@@ -0,0 +1,144 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранилище многих ключей RSA в одном файле, отображаемом в память.
+ *
+ * Формат: MAGIC (4 байта), число ключей (4 байта), индекс отсортированных по ID записей
+ * [ID ключа: 8 байт][смещение записи: 4 байта], затем записи в формате RSAKeyFile.
+ * Поиск по ID - двоичный поиск по индексу прямо в отображённом файле, запись
+ * разбирается только при первом обращении к ключу.
+ */
+public class RSAKeyStore implements AutoCloseable {
+    private static final int MAGIC = 0x524B5331; // "RKS1"
+    private static final int HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 12;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int keyCount;
+    private final Map<Long, RSA> loaded = new ConcurrentHashMap<>();
+
+    private RSAKeyStore(FileChannel channel, MappedByteBuffer buffer, int keyCount) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.keyCount = keyCount;
+    }
+
+    public static RSAKeyStore open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Неверный размер хранилища ключей");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Неизвестный формат хранилища ключей");
+            }
+            int keyCount = buffer.getInt(4);
+            if (keyCount < 0 || HEADER_SIZE + (long) keyCount * INDEX_ENTRY_SIZE > size) {
+                throw new IOException("Индекс хранилища ключей повреждён");
+            }
+            return new RSAKeyStore(channel, buffer, keyCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Записывает ключи (с закрытой частью, если она есть) в новое хранилище
+    public static void write(Path path, Map<Long, RSA> keys) throws IOException {
+        SortedMap<Long, RSA> sorted = new TreeMap<>(keys);
+        List<ByteBuffer> records = new ArrayList<>(sorted.size());
+        long size = HEADER_SIZE + (long) sorted.size() * INDEX_ENTRY_SIZE;
+        for (RSA rsa : sorted.values()) {
+            ByteBuffer record = RSAKeyFile.encode(rsa, rsa.hasPrivateKey());
+            records.add(record);
+            size += record.remaining();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Слишком много ключей для одного хранилища");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size);
+        out.putInt(MAGIC);
+        out.putInt(sorted.size());
+        int offset = HEADER_SIZE + sorted.size() * INDEX_ENTRY_SIZE;
+        int i = 0;
+        for (Long id : sorted.keySet()) {
+            out.putLong(id);
+            out.putInt(offset);
+            offset += records.get(i++).remaining();
+        }
+        for (ByteBuffer record : records) {
+            out.put(record);
+        }
+        out.flip();
+
+        // Хранилище с закрытыми ключами защищается так же, как файл закрытого ключа
+        boolean hasPrivate = sorted.values().stream().anyMatch(RSA::hasPrivateKey);
+        RSAKeyFile.write(out, path, hasPrivate);
+    }
+
+    public int size() {
+        return keyCount;
+    }
+
+    public boolean contains(long keyId) {
+        return indexOf(keyId) >= 0;
+    }
+
+    // Ключ по ID или null, если его нет в хранилище
+    public RSA get(long keyId) throws IOException {
+        RSA rsa = loaded.get(keyId);
+        if (rsa != null) {
+            return rsa;
+        }
+        int index = indexOf(keyId);
+        if (index < 0) {
+            return null;
+        }
+        int offset = buffer.getInt(HEADER_SIZE + index * INDEX_ENTRY_SIZE + 8);
+        if (offset < HEADER_SIZE || offset >= buffer.capacity()) {
+            throw new IOException("Неверное смещение записи ключа " + keyId);
+        }
+        rsa = RSAKeyFile.decode(buffer.duplicate().position(offset));
+        RSA previous = loaded.putIfAbsent(keyId, rsa);
+        return previous != null ? previous : rsa;
+    }
+
+    private int indexOf(long keyId) {
+        int low = 0;
+        int high = keyCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long id = buffer.getLong(HEADER_SIZE + middle * INDEX_ENTRY_SIZE);
+            if (id < keyId) {
+                low = middle + 1;
+            } else if (id > keyId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
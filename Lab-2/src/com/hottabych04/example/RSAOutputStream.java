@@ -0,0 +1,94 @@
+package com.hottabych04.example;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Поток, шифрующий данные блоками RSA в формате RSAStreamCipher.
+ * Данные накапливаются до BATCH_BLOCKS полных блоков, которые шифруются параллельно.
+ * Неполный последний блок шифруется при закрытии потока.
+ */
+public class RSAOutputStream extends FilterOutputStream {
+    private static final int BATCH_BLOCKS = 256;
+
+    private final RSAStreamCipher cipher;
+    private final byte[] buffer;
+    private final byte[] frames;
+    private int count;
+    private boolean headerWritten;
+    private boolean closed;
+
+    public RSAOutputStream(OutputStream out, RSAStreamCipher cipher) {
+        super(out);
+        this.cipher = cipher;
+        this.buffer = new byte[BATCH_BLOCKS * cipher.getPlainBlockSize()];
+        this.frames = new byte[BATCH_BLOCKS * cipher.getFrameSize()];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            flushBlocks(count);
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buffer.length) {
+                flushBlocks(count);
+            }
+            int length = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, length);
+            count += length;
+            off += length;
+            len -= length;
+        }
+    }
+
+    // Сбрасывает только полные блоки: неполный блок в середине потока нарушил бы размер кадров
+    @Override
+    public void flush() throws IOException {
+        int full = count - count % cipher.getPlainBlockSize();
+        if (full > 0) {
+            flushBlocks(full);
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlocks(count);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBlocks(int length) throws IOException {
+        writeHeader();
+        if (length == 0) {
+            return;
+        }
+        cipher.encryptBlocks(buffer, 0, length, frames, 0);
+        out.write(frames, 0, cipher.blockCount(length) * cipher.getFrameSize());
+        System.arraycopy(buffer, length, buffer, 0, count - length);
+        count -= length;
+    }
+
+    private void writeHeader() throws IOException {
+        if (!headerWritten) {
+            byte[] header = new byte[RSAStreamCipher.HEADER_SIZE];
+            cipher.writeHeader(header);
+            out.write(header);
+            headerWritten = true;
+        }
+    }
+}
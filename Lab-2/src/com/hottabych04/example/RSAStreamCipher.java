@@ -0,0 +1,170 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Блочное шифрование RSA для данных произвольной длины.
+ *
+ * Формат: заголовок (4 байта MAGIC, 4 байта длины модуля k в байтах), затем кадры
+ * фиксированного размера 2 + k: длина открытого блока (2 байта) и шифротекст,
+ * дополненный ведущими нулями до k байт. Открытый блок содержит не более k - 1 байт,
+ * поэтому его значение всегда меньше n. Длина в кадре сохраняет ведущие нули блока.
+ * Блоки независимы и шифруются/расшифровываются параллельно.
+ */
+public class RSAStreamCipher {
+    static final int MAGIC = 0x52534231; // "RSB1"
+    static final int HEADER_SIZE = 8;
+
+    private final RSA rsa;
+    private final ForkJoinPool pool;
+    private final int modulusBytes;
+
+    public RSAStreamCipher(RSA rsa) {
+        this(rsa, ForkJoinPool.commonPool());
+    }
+
+    public RSAStreamCipher(RSA rsa, ForkJoinPool pool) {
+        this.rsa = rsa;
+        this.pool = pool;
+        this.modulusBytes = (rsa.getPublicKey()[1].bitLength() + 7) / 8;
+    }
+
+    // Максимальная длина открытого блока
+    public int getPlainBlockSize() {
+        return modulusBytes - 1;
+    }
+
+    // Размер кадра в зашифрованном потоке
+    public int getFrameSize() {
+        return 2 + modulusBytes;
+    }
+
+    public byte[] encrypt(byte[] data) {
+        int blocks = blockCount(data.length);
+        byte[] result = new byte[HEADER_SIZE + blocks * getFrameSize()];
+        writeHeader(result);
+        encryptBlocks(data, 0, data.length, result, HEADER_SIZE);
+        return result;
+    }
+
+    public byte[] decrypt(byte[] data) throws IOException {
+        if (data.length < HEADER_SIZE) {
+            throw new IOException("Отсутствует заголовок");
+        }
+        checkHeader(data);
+        int frames = (data.length - HEADER_SIZE) / getFrameSize();
+        if (HEADER_SIZE + frames * getFrameSize() != data.length) {
+            throw new IOException("Длина шифротекста не кратна размеру кадра");
+        }
+        byte[] result = new byte[plainLength(data, HEADER_SIZE, frames)];
+        decryptFrames(data, HEADER_SIZE, frames, result, 0);
+        return result;
+    }
+
+    public OutputStream encryptingStream(OutputStream out) {
+        return new RSAOutputStream(out, this);
+    }
+
+    public InputStream decryptingStream(InputStream in) {
+        return new RSAInputStream(in, this);
+    }
+
+    int blockCount(int length) {
+        return (length + getPlainBlockSize() - 1) / getPlainBlockSize();
+    }
+
+    void writeHeader(byte[] dst) {
+        writeInt(dst, 0, MAGIC);
+        writeInt(dst, 4, modulusBytes);
+    }
+
+    void checkHeader(byte[] header) throws IOException {
+        if (readInt(header, 0) != MAGIC) {
+            throw new IOException("Неизвестный формат шифротекста");
+        }
+        if (readInt(header, 4) != modulusBytes) {
+            throw new IOException("Шифротекст создан ключом другой длины");
+        }
+    }
+
+    // Шифрует src[off, off + len) в последовательные кадры, начиная с dst[dstOff]
+    void encryptBlocks(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        int blockSize = getPlainBlockSize();
+        int frameSize = getFrameSize();
+        ParallelBlocks.forEach(pool, blockCount(len), i -> {
+            int start = off + i * blockSize;
+            int length = Math.min(blockSize, off + len - start);
+            BigInteger c = rsa.encryptRaw(new BigInteger(1, src, start, length));
+
+            int frame = dstOff + i * frameSize;
+            dst[frame] = (byte) (length >>> 8);
+            dst[frame + 1] = (byte) length;
+            RSA.writeFixed(c, dst, frame + 2, modulusBytes);
+        });
+    }
+
+    // Сумма длин открытых блоков в кадрах
+    int plainLength(byte[] src, int off, int frames) throws IOException {
+        int total = 0;
+        for (int i = 0; i < frames; i++) {
+            int length = frameLength(src, off + i * getFrameSize());
+            if (length > getPlainBlockSize()) {
+                throw new IOException("Неверная длина блока в кадре " + i);
+            }
+            total += length;
+        }
+        return total;
+    }
+
+    // Расшифровывает frames кадров из src[off] в dst[dstOff], возвращает число байт
+    int decryptFrames(byte[] src, int off, int frames, byte[] dst, int dstOff) throws IOException {
+        int frameSize = getFrameSize();
+        // Смещения открытых блоков считаются заранее, чтобы кадры можно было обрабатывать независимо
+        int[] offsets = new int[frames + 1];
+        offsets[0] = dstOff;
+        for (int i = 0; i < frames; i++) {
+            offsets[i + 1] = offsets[i] + frameLength(src, off + i * frameSize);
+        }
+
+        BigInteger n = rsa.getPublicKey()[1];
+        try {
+            ParallelBlocks.forEach(pool, frames, i -> {
+                int frame = off + i * frameSize;
+                int length = offsets[i + 1] - offsets[i];
+                BigInteger c = new BigInteger(1, src, frame + 2, modulusBytes);
+                if (c.compareTo(n) >= 0) {
+                    throw new UncheckedIOException(new IOException("Повреждённый блок " + i));
+                }
+                BigInteger m = rsa.decryptRaw(c);
+                if ((m.bitLength() + 7) / 8 > length) {
+                    throw new UncheckedIOException(new IOException("Повреждённый блок " + i));
+                }
+                RSA.writeFixed(m, dst, offsets[i], length);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return offsets[frames] - dstOff;
+    }
+
+    int frameLength(byte[] src, int frame) {
+        return ((src[frame] & 0xFF) << 8) | (src[frame + 1] & 0xFF);
+    }
+
+    private static void writeInt(byte[] dst, int off, int value) {
+        dst[off] = (byte) (value >>> 24);
+        dst[off + 1] = (byte) (value >>> 16);
+        dst[off + 2] = (byte) (value >>> 8);
+        dst[off + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] src, int off) {
+        return ((src[off] & 0xFF) << 24) | ((src[off + 1] & 0xFF) << 16)
+                | ((src[off + 2] & 0xFF) << 8) | (src[off + 3] & 0xFF);
+    }
+}
@@ -1,12 +1,18 @@
 package com.hottabych04.example;
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32C;
 import javax.imageio.*;
+import java.awt.Graphics2D;
 import java.awt.image.*;
 
 public class BMPSteganography {
     public static void main(String[] args) {
         if (args.length < 3) {
-            System.out.println("Usage: java BMPSteganography [hide/extract] [input_bmp] [input_txt/output_txt]");
+            System.out.println("Usage: java BMPSteganography [hide/hide-inplace/extract] [input_bmp] [input_txt/output_txt]"
+                    + " [bits_per_channel] [noalpha]");
             return;
         }
 
@@ -15,10 +21,17 @@ public class BMPSteganography {
         String txtPath = args[2];
 
         try {
+            // Both sides must use the same depth and alpha setting
+            LsbConfig config = args.length > 3
+                    ? new LsbConfig(Integer.parseInt(args[3]), !(args.length > 4 && "noalpha".equals(args[4])))
+                    : LsbConfig.DEFAULT;
             if ("hide".equals(mode)) {
-                hideInformation(bmpPath, txtPath);
+                hideInformation(bmpPath, txtPath, config);
+            } else if ("hide-inplace".equals(mode)) {
+                StreamingBmp.embedInPlace(Paths.get(bmpPath), readFileBytes(txtPath), config, ForkJoinPool.commonPool());
+                System.out.println("Information hidden successfully in: " + bmpPath);
             } else if ("extract".equals(mode)) {
-                extractInformation(bmpPath, txtPath);
+                extractInformation(bmpPath, txtPath, config);
             } else {
                 System.out.println("Invalid mode. Use 'hide' or 'extract'");
             }
@@ -28,76 +41,119 @@ public class BMPSteganography {
     }
 
     public static void hideInformation(String bmpPath, String txtPath) throws IOException {
-        // Read the BMP file
-        File bmpFile = new File(bmpPath);
-        BufferedImage image = ImageIO.read(bmpFile);
+        hideInformation(bmpPath, txtPath, LsbConfig.DEFAULT);
+    }
 
+    public static void hideInformation(String bmpPath, String txtPath, LsbConfig config) throws IOException {
         // Read the text file
         byte[] textData = readFileBytes(txtPath);
+        String outputPath = "hidden_" + bmpPath;
 
-        int width = image.getWidth();
-        int height = image.getHeight();
-
-        if (textData.length + 1 > width * height) { // +1 for EOF
-            throw new IOException("Text file too large for this image");
+        // Uncompressed 24/32-bit files are processed row by row without decoding
+        if (StreamingBmp.isSupported(Paths.get(bmpPath))) {
+            StreamingBmp.embed(Paths.get(bmpPath), Paths.get(outputPath), textData, config, ForkJoinPool.commonPool());
+            System.out.println("Information hidden successfully in: " + outputPath);
+            return;
         }
 
-        int index = 0;
-
-        // Hide the text data
-        for (int y = 0; y < height && index < textData.length; y++) {
-            for (int x = 0; x < width && index < textData.length; x++) {
-                int pixel = image.getRGB(x, y);
-                int newPixel = hideByteInPixel(pixel, textData[index]);
-                image.setRGB(x, y, newPixel);
-                index++;
-            }
-        }
+        // Read the BMP file
+        File bmpFile = new File(bmpPath);
+        BufferedImage image = ImageIO.read(bmpFile);
 
-        // Add EOF marker
-        if (index < width * height) {
-            int x = index % width;
-            int y = index / width;
-            int pixel = image.getRGB(x, y);
-            int newPixel = hideByteInPixel(pixel, (byte)0xFF);
-            image.setRGB(x, y, newPixel);
-        }
+        image = hide(image, textData, config, ForkJoinPool.commonPool());
 
         // Save the modified image
-        String outputPath = "hidden_" + bmpPath;
         ImageIO.write(image, "bmp", new File(outputPath));
         System.out.println("Information hidden successfully in: " + outputPath);
     }
 
     public static void extractInformation(String bmpPath, String outputPath) throws IOException {
+        extractInformation(bmpPath, outputPath, LsbConfig.DEFAULT);
+    }
+
+    public static void extractInformation(String bmpPath, String outputPath, LsbConfig config) throws IOException {
+        Path bmp = Paths.get(bmpPath);
+        if (StreamingBmp.isSupported(bmp)) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputPath))) {
+                StreamingBmp.extract(bmp, out, config, ForkJoinPool.commonPool());
+            }
+            System.out.println("Information extracted successfully to: " + outputPath);
+            return;
+        }
+
         // Read the BMP file
         File bmpFile = new File(bmpPath);
         BufferedImage image = ImageIO.read(bmpFile);
 
-        int width = image.getWidth();
-        int height = image.getHeight();
+        byte[] extractedData = extract(image, config, ForkJoinPool.commonPool());
 
-        ByteArrayOutputStream extractedData = new ByteArrayOutputStream();
+        // Save the extracted data
+        try (FileOutputStream fos = new FileOutputStream(outputPath)) {
+            fos.write(extractedData);
+        }
+        System.out.println("Information extracted successfully to: " + outputPath);
+    }
 
-        // Extract the hidden data
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int pixel = image.getRGB(x, y);
-                byte extractedByte = extractByteFromPixel(pixel);
+    public static BufferedImage hide(BufferedImage image, byte[] textData) throws IOException {
+        return hide(image, textData, ForkJoinPool.commonPool());
+    }
 
-                if (extractedByte == (byte)0xFF) { // EOF found
-                    break;
-                }
+    /**
+     * Hides the payload header and the data directly in the raster samples.
+     * Returns the image that holds the data, which is a converted copy
+     * if the original raster layout is not supported.
+     */
+    public static BufferedImage hide(BufferedImage image, byte[] textData, ForkJoinPool pool) throws IOException {
+        return hide(image, textData, LsbConfig.DEFAULT, pool);
+    }
 
-                extractedData.write(extractedByte);
-            }
+    public static BufferedImage hide(BufferedImage image, byte[] textData, LsbConfig config, ForkJoinPool pool)
+            throws IOException {
+        ChannelLayout layout = ChannelLayout.of(image, config);
+        if (layout == null) {
+            image = convert(image);
+            layout = ChannelLayout.of(image, config);
         }
 
-        // Save the extracted data
-        try (FileOutputStream fos = new FileOutputStream(outputPath)) {
-            fos.write(extractedData.toByteArray());
+        if ((long) textData.length + PayloadHeader.SIZE > layout.capacity()) {
+            throw new IOException("Text file too large for this image");
         }
-        System.out.println("Information extracted successfully to: " + outputPath);
+
+        // Length and checksum first, then the text data in parallel row bands
+        layout.embed(PayloadHeader.encode(textData), 0, PayloadHeader.SIZE, 0);
+        layout.embed(pool, textData, 0, textData.length, PayloadHeader.SIZE);
+        return image;
+    }
+
+    public static byte[] extract(BufferedImage image) throws IOException {
+        return extract(image, ForkJoinPool.commonPool());
+    }
+
+    public static byte[] extract(BufferedImage image, ForkJoinPool pool) throws IOException {
+        return extract(image, LsbConfig.DEFAULT, pool);
+    }
+
+    // Reads exactly the number of bytes given in the payload header and verifies their checksum
+    public static byte[] extract(BufferedImage image, LsbConfig config, ForkJoinPool pool) throws IOException {
+        ChannelLayout layout = ChannelLayout.of(image, config);
+        if (layout == null) {
+            image = convert(image);
+            layout = ChannelLayout.of(image, config);
+        }
+        if (layout.capacity() < PayloadHeader.SIZE) {
+            throw new NoHiddenDataException("No hidden data found in this image");
+        }
+
+        byte[] headerBytes = new byte[PayloadHeader.SIZE];
+        layout.extract(headerBytes, 0, PayloadHeader.SIZE, 0);
+        PayloadHeader header = PayloadHeader.decode(headerBytes, layout.capacity());
+
+        byte[] extractedData = new byte[header.length];
+        layout.extract(pool, extractedData, 0, header.length, PayloadHeader.SIZE);
+        CRC32C crc = header.newChecksum();
+        crc.update(extractedData, 0, extractedData.length);
+        header.verify(crc);
+        return extractedData;
     }
 
     private static byte[] readFileBytes(String path) throws IOException {
@@ -109,7 +165,18 @@ public class BMPSteganography {
         return fileData;
     }
 
-    private static int hideByteInPixel(int pixel, byte hideByte) {
+    // Redraws an image with an unsupported raster into a byte-interleaved one
+    static BufferedImage convert(BufferedImage image) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_4BYTE_ABGR : BufferedImage.TYPE_3BYTE_BGR;
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return converted;
+    }
+
+    // Per-pixel ARGB variant, kept as the baseline for SteganographyBenchmark
+    static int hideByteInPixel(int pixel, byte hideByte) {
         int alpha = (pixel >> 24) & 0xFF;
         int red = (pixel >> 16) & 0xFF;
         int green = (pixel >> 8) & 0xFF;
@@ -130,7 +197,7 @@ public class BMPSteganography {
         return (alpha << 24) | (red << 16) | (green << 8) | blue;
     }
 
-    private static byte extractByteFromPixel(int pixel) {
+    static byte extractByteFromPixel(int pixel) {
         int alpha = (pixel >> 24) & 0x3;
         int red = (pixel >> 16) & 0x3;
         int green = (pixel >> 8) & 0x3;
@@ -138,4 +205,4 @@ public class BMPSteganography {
 
         return (byte) ((blue << 6) | (green << 4) | (red << 2) | alpha);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Minimal parser of the BMP file and DIB headers for uncompressed 24- and 32-bit images.
+ * Row numbers used here are logical rows, row 0 is the top of the image for both
+ * bottom-up and top-down files.
+ */
+class BmpHeader {
+    private static final int FILE_HEADER_SIZE = 14;
+    private static final int BI_RGB = 0;
+    private static final int BI_BITFIELDS = 3;
+
+    final int width;
+    final int height;
+    final boolean topDown;
+    final int bitsPerPixel;
+    final int bytesPerPixel;
+    // Channels carrying data: B, G, R and A when the 32-bit file has an alpha mask
+    final int channelCount;
+    final long dataOffset;
+    // Row length in the file including the padding to 4 bytes
+    final int rowStride;
+
+    private BmpHeader(int width, int height, boolean topDown, int bitsPerPixel, int channelCount, long dataOffset) {
+        this.width = width;
+        this.height = height;
+        this.topDown = topDown;
+        this.bitsPerPixel = bitsPerPixel;
+        this.bytesPerPixel = bitsPerPixel / 8;
+        this.channelCount = channelCount;
+        this.dataOffset = dataOffset;
+        this.rowStride = (int) (((long) width * bitsPerPixel + 31) / 32 * 4);
+    }
+
+    static BmpHeader read(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE + 124).order(ByteOrder.LITTLE_ENDIAN);
+        int read;
+        do {
+            read = channel.read(header, header.position());
+        } while (read > 0 && header.hasRemaining());
+        header.flip();
+        if (header.remaining() < FILE_HEADER_SIZE + 40 || header.get(0) != 'B' || header.get(1) != 'M') {
+            throw new UnsupportedBmpException("Not a BMP file");
+        }
+
+        long dataOffset = header.getInt(10) & 0xFFFFFFFFL;
+        int dibSize = header.getInt(14);
+        if (dibSize < 40) {
+            throw new UnsupportedBmpException("Unsupported BMP header of " + dibSize + " bytes");
+        }
+        int width = header.getInt(18);
+        int rawHeight = header.getInt(22);
+        int bitsPerPixel = header.getShort(28);
+        int compression = header.getInt(30);
+
+        if (width <= 0 || rawHeight == 0 || rawHeight == Integer.MIN_VALUE) {
+            throw new UnsupportedBmpException("Invalid BMP dimensions");
+        }
+        if (bitsPerPixel != 24 && bitsPerPixel != 32) {
+            throw new UnsupportedBmpException("Only 24- and 32-bit BMP files can be streamed, got " + bitsPerPixel + "-bit");
+        }
+
+        int channelCount = 3;
+        if (compression == BI_BITFIELDS && bitsPerPixel == 32) {
+            // Masks follow the 40-byte header, the alpha mask is only present in V3+ headers
+            int red = header.getInt(54);
+            int green = header.getInt(58);
+            int blue = header.getInt(62);
+            if (red != 0x00FF0000 || green != 0x0000FF00 || blue != 0x000000FF) {
+                throw new UnsupportedBmpException("Unsupported BMP channel masks");
+            }
+            if (dibSize >= 56 && header.getInt(66) == 0xFF000000) {
+                channelCount = 4;
+            }
+        } else if (compression != BI_RGB) {
+            throw new UnsupportedBmpException("Compressed BMP files are not supported");
+        }
+
+        BmpHeader result = new BmpHeader(width, Math.abs(rawHeight), rawHeight < 0,
+                bitsPerPixel, channelCount, dataOffset);
+        if (dataOffset + (long) result.rowStride * result.height > channel.size()) {
+            throw new UnsupportedBmpException("BMP file is truncated");
+        }
+        return result;
+    }
+
+    // Position in the file of the first byte of a logical row
+    long rowPosition(int row) {
+        int fileRow = topDown ? row : height - 1 - row;
+        return dataOffset + (long) fileRow * rowStride;
+    }
+
+    // Number of bytes that can be hidden in the image
+    long capacity(LsbConfig config) {
+        int channels = channelCount == 4 && config.useAlpha ? 4 : 3;
+        return config.capacity((long) width * height * channels);
+    }
+}
@@ -0,0 +1,90 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Capacity of every BMP file in a directory that StreamingBmp can process.
+ * Only the file headers are read. Entries are sorted by file name so that
+ * the same directory always yields the same shard layout.
+ */
+class CarrierIndex {
+    static class Entry {
+        final Path path;
+        // Bytes available to a shard: image capacity minus the payload and shard headers
+        final long capacity;
+
+        Entry(Path path, long capacity) {
+            this.path = path;
+            this.capacity = capacity;
+        }
+    }
+
+    private final List<Entry> entries;
+    private final long totalCapacity;
+
+    private CarrierIndex(List<Entry> entries) {
+        this.entries = entries;
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.capacity;
+        }
+        this.totalCapacity = total;
+    }
+
+    static CarrierIndex build(Path directory) throws IOException {
+        return build(directory, LsbConfig.DEFAULT);
+    }
+
+    // Capacities for the given depth and alpha setting, the shards must be hidden with the same config
+    static CarrierIndex build(Path directory, LsbConfig config) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path file : listBmpFiles(directory)) {
+            Entry entry = entry(file, config);
+            if (entry != null && entry.capacity > 0) {
+                entries.add(entry);
+            }
+        }
+        return new CarrierIndex(Collections.unmodifiableList(entries));
+    }
+
+    static List<Path> listBmpFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.{bmp,BMP}")) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(file -> file.getFileName().toString()));
+        return files;
+    }
+
+    // Null for files StreamingBmp cannot process, they are left out of the index
+    private static Entry entry(Path file, LsbConfig config) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BmpHeader header = BmpHeader.read(channel);
+            long capacity = header.capacity(config) - PayloadHeader.SIZE - ShardedSteganography.SHARD_HEADER_SIZE;
+            return new Entry(file, Math.min(capacity, Integer.MAX_VALUE - 64));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    long totalCapacity() {
+        return totalCapacity;
+    }
+}
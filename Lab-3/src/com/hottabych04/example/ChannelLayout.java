@@ -0,0 +1,394 @@
+package com.hottabych04.example;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Direct access to the channel samples of a raster, bypassing the ColorModel.
+ * Channels are visited pixel by pixel in raster order and inside a pixel in the
+ * order B, G, R, A. The hidden bit stream is cut into LsbConfig.bitsPerChannel-bit
+ * pieces, one per channel, so a hidden byte may span pixel boundaries.
+ * Positions are given as byte offsets in the hidden stream.
+ *
+ * Eight channels holding bitsPerChannel bytes are processed as one step with the
+ * LsbConfig packing tables. When the channels of a row are consecutive bytes
+ * (3BYTE_BGR images and BMP rows) a step is a single long read and write.
+ */
+class ChannelLayout {
+    // Rows in one band processed by a single parallel task
+    private static final int BAND_ROWS = 64;
+    // Smallest band in hidden bytes, so that narrow images are not split into tiny tasks
+    private static final int MIN_BAND_BYTES = 64 * 1024;
+    /*
+     * Bands are multiples of 72 bytes: for every depth this is a whole number of steps
+     * and a whole number of 3- or 4-channel pixels, so no two tasks share a word,
+     * a channel or an int of a packed raster.
+     */
+    private static final int BAND_ALIGNMENT = 72;
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] bytes;
+    private final int[] ints;
+    private final int base;
+    private final int scanlineStride;
+    private final int pixelStride;
+    // Byte offsets inside a pixel (byte rasters) or bit shifts (int rasters), B, G, R[, A]
+    private final int[] channels;
+    private final int width;
+    private final int height;
+    private final LsbConfig config;
+    // Channels in one row
+    private final int rowChannels;
+    // Channel n of a row is byte n of the row, steps can be done with long words
+    private final boolean contiguous;
+
+    private ChannelLayout(byte[] bytes, int[] ints, int base, int scanlineStride, int pixelStride,
+                          int[] channels, int width, int height, LsbConfig config) {
+        this.bytes = bytes;
+        this.ints = ints;
+        this.base = base;
+        this.scanlineStride = scanlineStride;
+        this.pixelStride = pixelStride;
+        this.channels = channels;
+        this.width = width;
+        this.height = height;
+        this.config = config;
+        this.rowChannels = width * channels.length;
+        boolean consecutive = bytes != null && pixelStride == channels.length;
+        for (int c = 0; c < channels.length; c++) {
+            consecutive &= channels[c] == c;
+        }
+        this.contiguous = consecutive;
+    }
+
+    static ChannelLayout of(BufferedImage image) {
+        return of(image, LsbConfig.DEFAULT);
+    }
+
+    // Returns null if the raster is not an 8-bit-per-channel RGB(A) layout
+    static ChannelLayout of(BufferedImage image, LsbConfig config) {
+        WritableRaster raster = image.getRaster();
+        if (raster.getParent() != null || raster.getSampleModelTranslateX() != 0
+                || raster.getSampleModelTranslateY() != 0
+                || !(image.getColorModel().getColorSpace().isCS_sRGB())) {
+            return null;
+        }
+        int bands = raster.getNumBands();
+        if (bands != 3 && bands != 4) {
+            return null;
+        }
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer buffer = raster.getDataBuffer();
+
+        if (buffer instanceof DataBufferByte && sampleModel instanceof PixelInterleavedSampleModel) {
+            PixelInterleavedSampleModel model = (PixelInterleavedSampleModel) sampleModel;
+            for (int size : model.getSampleSize()) {
+                if (size != 8) {
+                    return null;
+                }
+            }
+            int[] offsets = model.getBandOffsets();
+            return new ChannelLayout(((DataBufferByte) buffer).getData(), null, buffer.getOffset(),
+                    model.getScanlineStride(), model.getPixelStride(), bgrOrder(offsets, bands, config),
+                    image.getWidth(), image.getHeight(), config);
+        }
+
+        if (buffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel) {
+            SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) sampleModel;
+            int[] masks = model.getBitMasks();
+            for (int mask : masks) {
+                if (Integer.bitCount(mask) != 8) {
+                    return null;
+                }
+            }
+            return new ChannelLayout(null, ((DataBufferInt) buffer).getData(), buffer.getOffset(),
+                    model.getScanlineStride(), 1, bgrOrder(model.getBitOffsets(), bands, config),
+                    image.getWidth(), image.getHeight(), config);
+        }
+        return null;
+    }
+
+    /**
+     * Layout over raw rows of B, G, R[, X|A] pixels, as stored in a BMP file.
+     * A negative scanlineStride with base at the last row describes bottom-up rows.
+     */
+    static ChannelLayout forRows(byte[] rows, int base, int scanlineStride, int bytesPerPixel,
+                                 int channelCount, int width, int height, LsbConfig config) {
+        int[] channels = channelCount == 4 && config.useAlpha ? new int[]{0, 1, 2, 3} : new int[]{0, 1, 2};
+        return new ChannelLayout(rows, null, base, scanlineStride, bytesPerPixel, channels, width, height, config);
+    }
+
+    // Bands of an RGB color model are R, G, B[, A]
+    private static int[] bgrOrder(int[] bandPositions, int bands, LsbConfig config) {
+        return bands == 4 && config.useAlpha
+                ? new int[]{bandPositions[2], bandPositions[1], bandPositions[0], bandPositions[3]}
+                : new int[]{bandPositions[2], bandPositions[1], bandPositions[0]};
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    // Channels in one pixel: 3, or 4 when alpha is used
+    int channelsPerPixel() {
+        return channels.length;
+    }
+
+    // Copies the 8-bit samples of channel c of row y into dst[0, width)
+    void readRow(int y, int c, int[] dst) {
+        int row = base + y * scanlineStride;
+        for (int x = 0; x < width; x++) {
+            dst[x] = sample(row, x, c);
+        }
+    }
+
+    long channelCount() {
+        return (long) rowChannels * height;
+    }
+
+    // Number of bytes that can be hidden
+    long capacity() {
+        return config.capacity(channelCount());
+    }
+
+    // Writes data[off, off + len) at byte streamOffset of the hidden stream
+    void embed(byte[] data, int off, int len, long streamOffset) {
+        int stepBytes = config.bitsPerChannel;
+        int end = off + len;
+        // Bytes before the first whole step and after the last one go bit by bit
+        while (off < end && streamOffset % stepBytes != 0) {
+            writeBits(streamOffset++ * 8, 8, data[off++] & 0xFF);
+        }
+        int steps = (end - off) / stepBytes;
+        embedSteps(data, off, steps, streamOffset / stepBytes * LsbConfig.LANES);
+        off += steps * stepBytes;
+        streamOffset += (long) steps * stepBytes;
+        while (off < end) {
+            writeBits(streamOffset++ * 8, 8, data[off++] & 0xFF);
+        }
+    }
+
+    // Reads len hidden bytes into dst from byte streamOffset of the hidden stream
+    void extract(byte[] dst, int off, int len, long streamOffset) {
+        int stepBytes = config.bitsPerChannel;
+        int end = off + len;
+        while (off < end && streamOffset % stepBytes != 0) {
+            dst[off++] = (byte) readBits(streamOffset++ * 8, 8);
+        }
+        int steps = (end - off) / stepBytes;
+        extractSteps(dst, off, steps, streamOffset / stepBytes * LsbConfig.LANES);
+        off += steps * stepBytes;
+        streamOffset += (long) steps * stepBytes;
+        while (off < end) {
+            dst[off++] = (byte) readBits(streamOffset++ * 8, 8);
+        }
+    }
+
+    private void embedSteps(byte[] data, int off, int steps, long channel) {
+        int stepBytes = config.bitsPerChannel;
+        long[][] pack = config.pack;
+        long laneMask = config.laneMask;
+        int lowMask = (1 << config.bitsPerChannel) - 1;
+        int row = base + (int) (channel / rowChannels) * scanlineStride;
+        int column = (int) (channel % rowChannels);
+
+        for (int s = 0; s < steps; s++) {
+            long word = pack[0][data[off] & 0xFF];
+            for (int k = 1; k < stepBytes; k++) {
+                word |= pack[k][data[off + k] & 0xFF];
+            }
+            off += stepBytes;
+
+            if (contiguous && column + LsbConfig.LANES <= rowChannels) {
+                int index = row + column;
+                LONG_LE.set(bytes, index, ((long) LONG_LE.get(bytes, index) & ~laneMask) | word);
+                column += LsbConfig.LANES;
+            } else {
+                int x = column / channels.length;
+                int c = column - x * channels.length;
+                for (int j = 0; j < LsbConfig.LANES; j++) {
+                    int sample = sample(row, x, c);
+                    setSample(row, x, c, (sample & ~lowMask) | (int) ((word >>> (8 * j)) & lowMask));
+                    if (++c == channels.length) {
+                        c = 0;
+                        if (++x == width) {
+                            x = 0;
+                            row += scanlineStride;
+                        }
+                    }
+                }
+                column = x * channels.length + c;
+            }
+            if (column == rowChannels) {
+                column = 0;
+                row += scanlineStride;
+            }
+        }
+    }
+
+    private void extractSteps(byte[] dst, int off, int steps, long channel) {
+        int stepBytes = config.bitsPerChannel;
+        long laneMask = config.laneMask;
+        int lowMask = (1 << config.bitsPerChannel) - 1;
+        int row = base + (int) (channel / rowChannels) * scanlineStride;
+        int column = (int) (channel % rowChannels);
+
+        for (int s = 0; s < steps; s++) {
+            long word;
+            if (contiguous && column + LsbConfig.LANES <= rowChannels) {
+                word = (long) LONG_LE.get(bytes, row + column) & laneMask;
+                column += LsbConfig.LANES;
+            } else {
+                word = 0;
+                int x = column / channels.length;
+                int c = column - x * channels.length;
+                for (int j = 0; j < LsbConfig.LANES; j++) {
+                    word |= (long) (sample(row, x, c) & lowMask) << (8 * j);
+                    if (++c == channels.length) {
+                        c = 0;
+                        if (++x == width) {
+                            x = 0;
+                            row += scanlineStride;
+                        }
+                    }
+                }
+                column = x * channels.length + c;
+            }
+            if (column == rowChannels) {
+                column = 0;
+                row += scanlineStride;
+            }
+
+            long value = config.unpack(word);
+            for (int k = 0; k < stepBytes; k++) {
+                dst[off + k] = (byte) (value >>> (8 * (stepBytes - 1 - k)));
+            }
+            off += stepBytes;
+        }
+    }
+
+    // Writes the low count bits of value, most significant first, at bit position bit of the stream
+    private void writeBits(long bit, int count, int value) {
+        int depth = config.bitsPerChannel;
+        while (count > 0) {
+            long channel = bit / depth;
+            int within = (int) (bit % depth);
+            int n = Math.min(count, depth - within);
+            int shift = depth - within - n;
+            int mask = ((1 << n) - 1) << shift;
+            int bits = ((value >>> (count - n)) << shift) & mask;
+            int row = base + (int) (channel / rowChannels) * scanlineStride;
+            int column = (int) (channel % rowChannels);
+            int x = column / channels.length;
+            int c = column - x * channels.length;
+            setSample(row, x, c, (sample(row, x, c) & ~mask) | bits);
+            count -= n;
+            bit += n;
+        }
+    }
+
+    private int readBits(long bit, int count) {
+        int depth = config.bitsPerChannel;
+        int value = 0;
+        while (count > 0) {
+            long channel = bit / depth;
+            int within = (int) (bit % depth);
+            int n = Math.min(count, depth - within);
+            int shift = depth - within - n;
+            int row = base + (int) (channel / rowChannels) * scanlineStride;
+            int column = (int) (channel % rowChannels);
+            int x = column / channels.length;
+            int c = column - x * channels.length;
+            value = (value << n) | ((sample(row, x, c) >>> shift) & ((1 << n) - 1));
+            count -= n;
+            bit += n;
+        }
+        return value;
+    }
+
+    // 8-bit sample of channel c of pixel x in the row starting at row
+    private int sample(int row, int x, int c) {
+        if (bytes != null) {
+            return bytes[row + x * pixelStride + channels[c]] & 0xFF;
+        }
+        return (ints[row + x] >>> channels[c]) & 0xFF;
+    }
+
+    private void setSample(int row, int x, int c, int value) {
+        if (bytes != null) {
+            bytes[row + x * pixelStride + channels[c]] = (byte) value;
+        } else {
+            int index = row + x;
+            ints[index] = (ints[index] & ~(0xFF << channels[c])) | (value << channels[c]);
+        }
+    }
+
+    // Same as embed, with the range split into row bands processed in parallel
+    void embed(ForkJoinPool pool, byte[] data, int off, int len, long streamOffset) {
+        pool.invoke(new BandTask(this, data, off, len, streamOffset, true));
+    }
+
+    // Same as extract, with the range split into row bands processed in parallel
+    void extract(ForkJoinPool pool, byte[] dst, int off, int len, long streamOffset) {
+        pool.invoke(new BandTask(this, dst, off, len, streamOffset, false));
+    }
+
+    // Hidden bytes in one band
+    private long bandBytes() {
+        long bytes = config.capacity((long) BAND_ROWS * rowChannels);
+        return Math.max(MIN_BAND_BYTES, bytes) / BAND_ALIGNMENT * BAND_ALIGNMENT;
+    }
+
+    private static class BandTask extends RecursiveAction {
+        private final ChannelLayout layout;
+        private final byte[] data;
+        private final int off;
+        private final int len;
+        private final long streamOffset;
+        private final boolean embed;
+
+        BandTask(ChannelLayout layout, byte[] data, int off, int len, long streamOffset, boolean embed) {
+            this.layout = layout;
+            this.data = data;
+            this.off = off;
+            this.len = len;
+            this.streamOffset = streamOffset;
+            this.embed = embed;
+        }
+
+        @Override
+        protected void compute() {
+            long band = layout.bandBytes();
+            long firstBand = streamOffset / band;
+            long lastBand = (streamOffset + len - 1) / band;
+            if (len == 0 || firstBand == lastBand) {
+                if (embed) {
+                    layout.embed(data, off, len, streamOffset);
+                } else {
+                    layout.extract(data, off, len, streamOffset);
+                }
+                return;
+            }
+
+            // Split on a band boundary of the whole stream
+            int left = (int) ((firstBand + lastBand + 1) / 2 * band - streamOffset);
+            invokeAll(new BandTask(layout, data, off, left, streamOffset, embed),
+                    new BandTask(layout, data, off + left, len - left, streamOffset + left, embed));
+        }
+    }
+}
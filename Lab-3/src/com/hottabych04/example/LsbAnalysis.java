@@ -0,0 +1,249 @@
+package com.hottabych04.example;
+
+/**
+ * Statistics over the low bits of the color channels that reveal LSB embedding.
+ *
+ * Pair-of-values chi-square test (Westfeld and Pfitzmann): embedding random bits in the
+ * LSB equalizes the counts of the values 2k and 2k+1. The result is the probability that
+ * the histogram is that of an image with embedded data, close to 1 for a full payload.
+ * As BMPSteganography fills the image from the top, the test is also run on the top band.
+ *
+ * RS analysis (Fridrich, Goljan and Du): the share of regular and singular pixel groups
+ * under LSB flipping with the mask [0, 1, 1, 0] changes with the embedding rate. The
+ * result is the estimated fraction of pixels whose LSB carries data.
+ */
+class LsbAnalysis {
+    // Rows in the top band tested separately, as a fraction of the image height
+    private static final int TOP_BAND_DIVISOR = 8;
+    // Pairs whose expected count is lower are left out of the chi-square sum
+    private static final int MIN_EXPECTED = 5;
+    private static final int[] MASK = {0, 1, 1, 0};
+
+    static class Result {
+        final int width;
+        final int height;
+        // Probability of embedding from the chi-square test, whole image and top band
+        final double chiSquare;
+        final double chiSquareTop;
+        // Estimated embedding rate from RS analysis per channel in B, G, R order
+        final double[] rs;
+
+        Result(int width, int height, double chiSquare, double chiSquareTop, double[] rs) {
+            this.width = width;
+            this.height = height;
+            this.chiSquare = chiSquare;
+            this.chiSquareTop = chiSquareTop;
+            this.rs = rs;
+        }
+
+        double rsAverage() {
+            double sum = 0;
+            for (double value : rs) {
+                sum += value;
+            }
+            return sum / rs.length;
+        }
+
+        // Flags the image if either test points to a payload
+        boolean suspicious() {
+            return chiSquareTop > 0.95 || rsAverage() > 0.1;
+        }
+    }
+
+    static Result analyze(ChannelLayout layout) {
+        int width = layout.width();
+        int height = layout.height();
+        int channels = Math.min(3, layout.channelsPerPixel());
+        int topRows = Math.max(1, height / TOP_BAND_DIVISOR);
+
+        long[] histogram = new long[256];
+        long[] topHistogram = new long[256];
+        // Per channel: regular and singular group counts for M and -M, on the image and
+        // with all LSBs flipped, followed by the number of groups
+        long[][] groups = new long[channels][9];
+        int[] samples = new int[width];
+        int[] group = new int[MASK.length];
+
+        for (int y = 0; y < height; y++) {
+            for (int c = 0; c < channels; c++) {
+                layout.readRow(y, c, samples);
+                for (int x = 0; x < width; x++) {
+                    histogram[samples[x]]++;
+                }
+                if (y < topRows) {
+                    for (int x = 0; x < width; x++) {
+                        topHistogram[samples[x]]++;
+                    }
+                }
+                for (int x = 0; x + MASK.length <= width; x += MASK.length) {
+                    System.arraycopy(samples, x, group, 0, MASK.length);
+                    classify(group, groups[c]);
+                }
+            }
+        }
+
+        double[] rs = new double[channels];
+        for (int c = 0; c < channels; c++) {
+            rs[c] = rsEstimate(groups[c]);
+        }
+        return new Result(width, height, chiSquareProbability(histogram), chiSquareProbability(topHistogram), rs);
+    }
+
+    // Probability that the pairs of values 2k, 2k+1 have equal expected counts
+    static double chiSquareProbability(long[] histogram) {
+        double chi = 0;
+        int pairs = 0;
+        for (int k = 0; k < 256; k += 2) {
+            double expected = (histogram[k] + histogram[k + 1]) / 2.0;
+            if (expected < MIN_EXPECTED) {
+                continue;
+            }
+            double difference = histogram[k] - expected;
+            chi += difference * difference / expected;
+            pairs++;
+        }
+        if (pairs < 2) {
+            return 0;
+        }
+        return 1 - regularizedGammaP((pairs - 1) / 2.0, chi / 2);
+    }
+
+    // Adds the group to counts: R_M, S_M, R_-M, S_-M, then the same for the group with all LSBs flipped
+    private static void classify(int[] group, long[] counts) {
+        counts[8]++;
+        int plain = smoothness(group, 0, false);
+        count(smoothness(group, 1, false), plain, counts, 0);
+        count(smoothness(group, -1, false), plain, counts, 2);
+        int flipped = smoothness(group, 0, true);
+        count(smoothness(group, 1, true), flipped, counts, 4);
+        count(smoothness(group, -1, true), flipped, counts, 6);
+    }
+
+    private static void count(int masked, int plain, long[] counts, int index) {
+        if (masked > plain) {
+            counts[index]++;
+        } else if (masked < plain) {
+            counts[index + 1]++;
+        }
+    }
+
+    /**
+     * Sum of absolute differences of neighbours after applying the flipping function
+     * (1: LSB flip, -1: shifted flip, 0: none) where the mask is set, on the group
+     * with all LSBs flipped first if flipAll is set.
+     */
+    private static int smoothness(int[] group, int direction, boolean flipAll) {
+        int sum = 0;
+        int previous = 0;
+        for (int i = 0; i < group.length; i++) {
+            int value = flipAll ? group[i] ^ 1 : group[i];
+            if (MASK[i] != 0) {
+                if (direction == 1) {
+                    value ^= 1;
+                } else if (direction == -1) {
+                    value = ((value + 1) ^ 1) - 1;
+                }
+            }
+            if (i > 0) {
+                sum += Math.abs(value - previous);
+            }
+            previous = value;
+        }
+        return sum;
+    }
+
+    // Solves the RS quadratic for the embedding rate, clamped to [0, 1]
+    private static double rsEstimate(long[] counts) {
+        double total = counts[8];
+        if (total == 0) {
+            return 0;
+        }
+        // Differences of the relative counts R - S
+        double d0 = (counts[0] - counts[1]) / total;
+        double dMinus0 = (counts[2] - counts[3]) / total;
+        double d1 = (counts[4] - counts[5]) / total;
+        double dMinus1 = (counts[6] - counts[7]) / total;
+
+        double a = 2 * (d1 + d0);
+        double b = dMinus0 - dMinus1 - d1 - 3 * d0;
+        double c = d0 - dMinus0;
+        double x;
+        if (Math.abs(a) < 1e-12) {
+            if (Math.abs(b) < 1e-12) {
+                return 0;
+            }
+            x = -c / b;
+        } else {
+            double discriminant = b * b - 4 * a * c;
+            if (discriminant < 0) {
+                // Near full embedding the estimates are noisy, take the closest real point
+                x = -b / (2 * a);
+            } else {
+                double root = Math.sqrt(discriminant);
+                double x1 = (-b + root) / (2 * a);
+                double x2 = (-b - root) / (2 * a);
+                x = Math.abs(x1) < Math.abs(x2) ? x1 : x2;
+            }
+        }
+        double rate = x / (x - 0.5);
+        return Double.isFinite(rate) ? Math.max(0, Math.min(1, rate)) : 0;
+    }
+
+    // P(a, x), series below a + 1 and continued fraction above
+    static double regularizedGammaP(double a, double x) {
+        if (x <= 0) {
+            return 0;
+        }
+        double logPrefix = -x + a * Math.log(x) - logGamma(a);
+        if (x < a + 1) {
+            double term = 1 / a;
+            double sum = term;
+            for (int n = 1; n < 1000; n++) {
+                term *= x / (a + n);
+                sum += term;
+                if (Math.abs(term) < Math.abs(sum) * 1e-15) {
+                    break;
+                }
+            }
+            return sum * Math.exp(logPrefix);
+        }
+
+        // Lentz's method for the continued fraction of Q(a, x)
+        double tiny = 1e-300;
+        double b = x + 1 - a;
+        double c = 1 / tiny;
+        double d = 1 / b;
+        double h = d;
+        for (int n = 1; n < 1000; n++) {
+            double an = -n * (n - a);
+            b += 2;
+            d = an * d + b;
+            d = Math.abs(d) < tiny ? tiny : d;
+            c = b + an / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < 1e-15) {
+                break;
+            }
+        }
+        return 1 - Math.exp(logPrefix) * h;
+    }
+
+    // Lanczos approximation
+    private static double logGamma(double x) {
+        double[] coefficients = {
+                76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5
+        };
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+}
@@ -0,0 +1,78 @@
+package com.hottabych04.example;
+
+/**
+ * Number of low bits used in every channel and whether the alpha channel carries data.
+ * The hidden bytes form a bit stream, most significant bit first, that is cut into
+ * bitsPerChannel-bit pieces, one per channel. Eight channels therefore always hold
+ * exactly bitsPerChannel bytes, which is the unit processed with one long word:
+ * the bytes are spread over the lanes with a precomputed table per byte position
+ * and gathered back with shifts.
+ */
+public final class LsbConfig {
+    // 2 bits in B, G, R and A, the original BMPSteganography format
+    public static final LsbConfig DEFAULT = new LsbConfig(2, true);
+
+    // Channels in one step, one per byte of a long
+    static final int LANES = 8;
+    private static final long LANE_LOW_BIT = 0x0101010101010101L;
+
+    final int bitsPerChannel;
+    final boolean useAlpha;
+    // Low bits of every lane of a step word
+    final long laneMask;
+    // pack[k][b]: lanes of a step word holding byte b at position k of the step
+    final long[][] pack;
+
+    public LsbConfig(int bitsPerChannel, boolean useAlpha) {
+        if (bitsPerChannel < 1 || bitsPerChannel > 4) {
+            throw new IllegalArgumentException("Bits per channel must be between 1 and 4, got " + bitsPerChannel);
+        }
+        this.bitsPerChannel = bitsPerChannel;
+        this.useAlpha = useAlpha;
+        int mask = (1 << bitsPerChannel) - 1;
+        this.laneMask = LANE_LOW_BIT * mask;
+
+        // The step value has 8 * bitsPerChannel bits, lane j holds bits counted from the top
+        int valueBits = LANES * bitsPerChannel;
+        this.pack = new long[bitsPerChannel][256];
+        for (int k = 0; k < bitsPerChannel; k++) {
+            for (int b = 0; b < 256; b++) {
+                long value = (long) b << (valueBits - 8 * (k + 1));
+                long word = 0;
+                for (int j = 0; j < LANES; j++) {
+                    word |= ((value >>> (valueBits - (j + 1) * bitsPerChannel)) & mask) << (8 * j);
+                }
+                pack[k][b] = word;
+            }
+        }
+    }
+
+    /**
+     * Joins the masked lanes of a step word into the step value, lane 0 being the most
+     * significant. Neighbouring lanes are merged pairwise in three rounds of shifts.
+     */
+    long unpack(long word) {
+        int bits = bitsPerChannel;
+        word = ((word & 0x00FF00FF00FF00FFL) << bits) | ((word >>> 8) & 0x00FF00FF00FF00FFL);
+        word = ((word & 0x0000FFFF0000FFFFL) << (2 * bits)) | ((word >>> 16) & 0x0000FFFF0000FFFFL);
+        return ((word & 0xFFFFFFFFL) << (4 * bits)) | (word >>> 32);
+    }
+
+    public int getBitsPerChannel() {
+        return bitsPerChannel;
+    }
+
+    public boolean isUseAlpha() {
+        return useAlpha;
+    }
+
+    // Number of whole bytes that fit in the given number of channels
+    long capacity(long channels) {
+        return channels * bitsPerChannel / 8;
+    }
+
+    @Override
+    public String toString() {
+        return bitsPerChannel + " bit" + (bitsPerChannel > 1 ? "s" : "") + (useAlpha ? ", alpha" : ", no alpha");
+    }
+}
@@ -0,0 +1,81 @@
+package com.hottabych04.example;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Payload throughput of hide and extract for every LSB depth, with and without alpha,
+ * over the three raster kinds ChannelLayout handles differently.
+ * Usage: java LsbDepthBenchmark [megapixels] [threads]
+ */
+public class LsbDepthBenchmark {
+    private static final int[] TYPES = {
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_ARGB
+    };
+    private static final String[] TYPE_NAMES = {"3BYTE_BGR", "4BYTE_ABGR", "INT_ARGB"};
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int megapixels = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int side = (int) Math.sqrt(megapixels * 1_000_000.0);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        System.out.printf("%dx%d image, %d thread(s), payload MB/s%n", side, side, threads);
+        System.out.printf("%-11s %-14s %10s %10s %10s%n", "raster", "depth", "capacity", "hide", "extract");
+        for (int t = 0; t < TYPES.length; t++) {
+            BufferedImage image = randomImage(side, TYPES[t]);
+            for (int bits = 1; bits <= 4; bits++) {
+                for (boolean alpha : new boolean[]{true, false}) {
+                    if (alpha && !image.getColorModel().hasAlpha()) {
+                        continue;
+                    }
+                    run(TYPE_NAMES[t], image, new LsbConfig(bits, alpha), pool);
+                }
+            }
+        }
+        pool.shutdown();
+    }
+
+    private static void run(String name, BufferedImage image, LsbConfig config, ForkJoinPool pool) throws Exception {
+        byte[] payload = new byte[(int) (ChannelLayout.of(image, config).capacity() - PayloadHeader.SIZE)];
+        new Random(config.bitsPerChannel).nextBytes(payload);
+
+        long hide = Long.MAX_VALUE;
+        long extract = Long.MAX_VALUE;
+        byte[] extracted = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            BMPSteganography.hide(image, payload, config, pool);
+            hide = Math.min(hide, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            extracted = BMPSteganography.extract(image, config, pool);
+            extract = Math.min(extract, System.nanoTime() - start);
+        }
+        if (!Arrays.equals(extracted, payload)) {
+            System.out.println("  ERROR: extracted data differs from the hidden data");
+        }
+
+        System.out.printf("%-11s %-14s %7.1f MB %10.1f %10.1f%n", name, config, payload.length / 1e6,
+                payload.length / (hide / 1e9) / 1e6, payload.length / (extract / 1e9) / 1e6);
+    }
+
+    private static BufferedImage randomImage(int side, int type) {
+        BufferedImage image = new BufferedImage(side, side, type);
+        Random random = new Random(1);
+        if (image.getRaster().getDataBuffer() instanceof DataBufferByte) {
+            random.nextBytes(((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+        } else {
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = random.nextInt();
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,13 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+
+/**
+ * The image was read, but its low bits do not hold a valid payload header or
+ * the checksum does not match. Unlike other IOExceptions this is not an I/O failure.
+ */
+public class NoHiddenDataException extends IOException {
+    public NoHiddenDataException(String message) {
+        super(message);
+    }
+}
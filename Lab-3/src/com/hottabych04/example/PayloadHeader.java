@@ -0,0 +1,57 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Header hidden in front of the payload: 4-byte length and 4-byte CRC32C of the length
+ * followed by the data. It replaces the 0xFF EOF marker, so payloads may contain any byte
+ * value and extraction reads exactly length bytes. Covering the length keeps a carrier
+ * with all-zero low bits from passing as an empty payload.
+ */
+class PayloadHeader {
+    static final int SIZE = 8;
+
+    final int length;
+    final int checksum;
+
+    private PayloadHeader(int length, int checksum) {
+        this.length = length;
+        this.checksum = checksum;
+    }
+
+    static byte[] encode(byte[] data) {
+        CRC32C crc = checksum(data.length);
+        crc.update(data, 0, data.length);
+        return ByteBuffer.allocate(SIZE).putInt(data.length).putInt((int) crc.getValue()).array();
+    }
+
+    // capacity is the number of bytes the carrier holds including the header
+    static PayloadHeader decode(byte[] header, long capacity) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(header, 0, SIZE);
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length < 0 || length > capacity - SIZE) {
+            throw new NoHiddenDataException("No hidden data found in this image");
+        }
+        return new PayloadHeader(length, checksum);
+    }
+
+    // Checksum already covering the length, the data is added with update()
+    static CRC32C checksum(int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(4).putInt(length).flip());
+        return crc;
+    }
+
+    CRC32C newChecksum() {
+        return checksum(length);
+    }
+
+    void verify(CRC32C actual) throws IOException {
+        if ((int) actual.getValue() != checksum) {
+            throw new NoHiddenDataException("No hidden data found or the data is corrupted: checksum mismatch");
+        }
+    }
+}
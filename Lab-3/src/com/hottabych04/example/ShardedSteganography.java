@@ -0,0 +1,309 @@
+package com.hottabych04.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads one payload over a directory of carrier BMP files.
+ * Carriers are filled in file name order, each shard starts with a shard header
+ * (magic, sequence number, shard count, offset and total payload length) and is then
+ * hidden with StreamingBmp, so every shard also has its own length and checksum.
+ * One task handles one image, both for embedding and for extraction.
+ */
+public class ShardedSteganography {
+    static final int SHARD_HEADER_SIZE = 28;
+    private static final int SHARD_MAGIC = 0x53534831; // "SSH1"
+
+    public static void main(String[] args) {
+        if (args.length < 3 || ("hide".equals(args[0]) && args.length < 4)) {
+            System.out.println("Usage: java ShardedSteganography hide [carrier_dir] [input_file] [output_dir]"
+                    + " [bits_per_channel] [noalpha]");
+            System.out.println("       java ShardedSteganography extract [carrier_dir] [output_file]"
+                    + " [bits_per_channel] [noalpha]");
+            return;
+        }
+
+        try {
+            // Both sides must use the same depth and alpha setting
+            int optionsStart = "hide".equals(args[0]) ? 4 : 3;
+            LsbConfig config = args.length > optionsStart
+                    ? new LsbConfig(Integer.parseInt(args[optionsStart]),
+                    !(args.length > optionsStart + 1 && "noalpha".equals(args[optionsStart + 1])))
+                    : LsbConfig.DEFAULT;
+            long start = System.nanoTime();
+            if ("hide".equals(args[0])) {
+                Path carriers = Paths.get(args[1]);
+                CarrierIndex index = CarrierIndex.build(carriers, config);
+                Result result = hide(index, Paths.get(args[2]), Paths.get(args[3]), config, ForkJoinPool.commonPool());
+                report("Hidden", result, System.nanoTime() - start);
+                System.out.printf("Capacity utilization: %.1f%% of the %d carriers used, %.1f%% of the corpus (%d images, %d bytes)%n",
+                        percent(result.bytes, result.usedCapacity), result.shards,
+                        percent(result.bytes, index.totalCapacity()), index.entries().size(), index.totalCapacity());
+            } else if ("extract".equals(args[0])) {
+                Result result = extract(Paths.get(args[1]), Paths.get(args[2]), config, ForkJoinPool.commonPool());
+                report("Extracted", result, System.nanoTime() - start);
+            } else {
+                System.out.println("Invalid mode. Use 'hide' or 'extract'");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static Result hide(CarrierIndex index, Path input, Path outputDir, ForkJoinPool pool) throws IOException {
+        return hide(index, input, outputDir, LsbConfig.DEFAULT, pool);
+    }
+
+    /**
+     * Hides the input file in copies of the indexed carriers written to outputDir.
+     * Only as many carriers as the payload needs are copied. The index must have
+     * been built with the same config.
+     */
+    public static Result hide(CarrierIndex index, Path input, Path outputDir, LsbConfig config, ForkJoinPool pool)
+            throws IOException {
+        Files.createDirectories(outputDir);
+        try (FileChannel payload = FileChannel.open(input, StandardOpenOption.READ)) {
+            long total = payload.size();
+            if (total > index.totalCapacity()) {
+                throw new IOException("Input of " + total + " bytes exceeds the capacity of the carriers ("
+                        + index.totalCapacity() + " bytes)");
+            }
+
+            // Assign consecutive ranges of the payload to carriers in index order
+            List<RecursiveAction> tasks = new ArrayList<>();
+            List<CarrierIndex.Entry> entries = index.entries();
+            long offset = 0;
+            long usedCapacity = 0;
+            int count = 0;
+            while (count < entries.size() && (offset < total || count == 0)) {
+                offset += Math.min(entries.get(count).capacity, total - offset);
+                usedCapacity += entries.get(count).capacity;
+                count++;
+            }
+
+            offset = 0;
+            for (int i = 0; i < count; i++) {
+                CarrierIndex.Entry entry = entries.get(i);
+                int length = (int) Math.min(entry.capacity, total - offset);
+                Path target = outputDir.resolve(entry.path.getFileName());
+                tasks.add(new HideTask(payload, entry.path, target, i, count, offset, length, total, config, pool));
+                offset += length;
+            }
+
+            invokeAll(pool, tasks);
+            return new Result(total, count, usedCapacity);
+        }
+    }
+
+    /**
+     * Extracts the shards found in the BMP files of a directory in parallel and writes
+     * each at its offset in output. Files that are not streamable BMPs or hold no valid
+     * shard are ignored, any other read error aborts the extraction.
+     */
+    public static Result extract(Path directory, Path output, ForkJoinPool pool) throws IOException {
+        return extract(directory, output, LsbConfig.DEFAULT, pool);
+    }
+
+    public static Result extract(Path directory, Path output, LsbConfig config, ForkJoinPool pool) throws IOException {
+        List<Path> files = CarrierIndex.listBmpFiles(directory);
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ShardHeader[] found = new ShardHeader[files.size()];
+            List<RecursiveAction> tasks = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                tasks.add(new ExtractTask(files.get(i), out, found, i, config, pool));
+            }
+            invokeAll(pool, tasks);
+
+            // Every sequence number of the same payload must be present exactly once
+            ShardHeader first = null;
+            boolean[] seen = null;
+            for (ShardHeader header : found) {
+                if (header == null) {
+                    continue;
+                }
+                if (first == null) {
+                    first = header;
+                    seen = new boolean[header.count];
+                } else if (header.count != first.count || header.total != first.total) {
+                    throw new IOException("Shards of different payloads found in " + directory);
+                }
+                if (header.sequence >= seen.length || seen[header.sequence]) {
+                    throw new IOException("Duplicate or invalid shard " + header.sequence + " in " + directory);
+                }
+                seen[header.sequence] = true;
+            }
+            if (first == null) {
+                throw new IOException("No hidden shards found in " + directory);
+            }
+            for (int i = 0; i < seen.length; i++) {
+                if (!seen[i]) {
+                    throw new IOException("Shard " + i + " of " + first.count + " is missing");
+                }
+            }
+            out.truncate(first.total);
+            return new Result(first.total, first.count, 0);
+        }
+    }
+
+    private static void invokeAll(ForkJoinPool pool, List<RecursiveAction> tasks) throws IOException {
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void report(String action, Result result, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%s %d bytes in %d images in %.3f s (%.2f MB/s)%n", action, result.bytes,
+                result.shards, seconds, seconds > 0 ? result.bytes / seconds / (1024 * 1024) : 0.0);
+    }
+
+    private static double percent(long part, long whole) {
+        return whole > 0 ? 100.0 * part / whole : 0.0;
+    }
+
+    public static class Result {
+        public final long bytes;
+        public final int shards;
+        // Capacity of the carriers holding the shards, 0 after extraction
+        public final long usedCapacity;
+
+        Result(long bytes, int shards, long usedCapacity) {
+            this.bytes = bytes;
+            this.shards = shards;
+            this.usedCapacity = usedCapacity;
+        }
+    }
+
+    static class ShardHeader {
+        final int sequence;
+        final int count;
+        final long offset;
+        final long total;
+
+        ShardHeader(int sequence, int count, long offset, long total) {
+            this.sequence = sequence;
+            this.count = count;
+            this.offset = offset;
+            this.total = total;
+        }
+
+        void write(ByteBuffer buffer) {
+            buffer.putInt(SHARD_MAGIC).putInt(sequence).putInt(count).putLong(offset).putLong(total);
+        }
+
+        // Null if the buffer does not start with a shard header
+        static ShardHeader read(ByteBuffer buffer, int shardLength) {
+            if (buffer.remaining() < SHARD_HEADER_SIZE || buffer.getInt() != SHARD_MAGIC) {
+                return null;
+            }
+            ShardHeader header = new ShardHeader(buffer.getInt(), buffer.getInt(), buffer.getLong(), buffer.getLong());
+            if (header.sequence < 0 || header.count <= 0 || header.offset < 0
+                    || header.offset + shardLength > header.total) {
+                return null;
+            }
+            return header;
+        }
+    }
+
+    private static class HideTask extends RecursiveAction {
+        private final FileChannel payload;
+        private final Path source;
+        private final Path target;
+        private final ShardHeader header;
+        private final int length;
+        private final LsbConfig config;
+        private final ForkJoinPool pool;
+
+        HideTask(FileChannel payload, Path source, Path target, int sequence, int count,
+                 long offset, int length, long total, LsbConfig config, ForkJoinPool pool) {
+            this.payload = payload;
+            this.source = source;
+            this.target = target;
+            this.header = new ShardHeader(sequence, count, offset, total);
+            this.length = length;
+            this.config = config;
+            this.pool = pool;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                ByteBuffer shard = ByteBuffer.allocate(SHARD_HEADER_SIZE + length);
+                header.write(shard);
+                while (shard.hasRemaining()) {
+                    if (payload.read(shard, header.offset + shard.position() - SHARD_HEADER_SIZE) < 0) {
+                        throw new IOException("Input file changed while hiding");
+                    }
+                }
+                StreamingBmp.embed(source, target, shard.array(), config, pool);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class ExtractTask extends RecursiveAction {
+        private final Path file;
+        private final FileChannel out;
+        private final ShardHeader[] found;
+        private final int slot;
+        private final LsbConfig config;
+        private final ForkJoinPool pool;
+
+        ExtractTask(Path file, FileChannel out, ShardHeader[] found, int slot, LsbConfig config, ForkJoinPool pool) {
+            this.file = file;
+            this.out = out;
+            this.found = found;
+            this.slot = slot;
+            this.config = config;
+            this.pool = pool;
+        }
+
+        @Override
+        protected void compute() {
+            ByteArrayOutputStream shard = new ByteArrayOutputStream();
+            try {
+                StreamingBmp.extract(file, shard, config, pool);
+            } catch (UnsupportedBmpException | NoHiddenDataException e) {
+                // Not a carrier of this payload
+                return;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(shard.toByteArray());
+            ShardHeader header = ShardHeader.read(buffer, buffer.remaining() - SHARD_HEADER_SIZE);
+            if (header == null) {
+                return;
+            }
+            try {
+                long position = header.offset;
+                while (buffer.hasRemaining()) {
+                    position += out.write(buffer, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            found[slot] = header;
+        }
+    }
+}
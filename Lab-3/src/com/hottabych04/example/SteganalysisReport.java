@@ -0,0 +1,114 @@
+package com.hottabych04.example;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Writes one record per analyzed image as soon as it is available, as CSV or,
+ * for a file name ending in .json, as a JSON array. Safe to call from several tasks.
+ */
+class SteganalysisReport implements Closeable {
+    private final BufferedWriter writer;
+    private final boolean json;
+    private boolean first = true;
+
+    SteganalysisReport(Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        this.json = path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+        if (json) {
+            writer.write("[");
+        } else {
+            writer.write("file,width,height,chi_square,chi_square_top,rs_blue,rs_green,rs_red,suspicious,error");
+        }
+        writer.newLine();
+    }
+
+    synchronized void write(Path file, LsbAnalysis.Result result) throws IOException {
+        if (json) {
+            writer.write(first ? "  {" : ",\n  {");
+            writer.write("\"file\": " + jsonString(file.toString()));
+            writer.write(String.format(Locale.ROOT,
+                    ", \"width\": %d, \"height\": %d, \"chiSquare\": %.6f, \"chiSquareTop\": %.6f, "
+                            + "\"rs\": [%s], \"suspicious\": %b}",
+                    result.width, result.height, result.chiSquare, result.chiSquareTop,
+                    rsList(result.rs, ", "), result.suspicious()));
+        } else {
+            writer.write(csvString(file.toString()));
+            writer.write(String.format(Locale.ROOT, ",%d,%d,%.6f,%.6f,%s,%b,",
+                    result.width, result.height, result.chiSquare, result.chiSquareTop,
+                    rsList(result.rs, ","), result.suspicious()));
+            writer.newLine();
+        }
+        first = false;
+    }
+
+    // Records an image that could not be read
+    synchronized void writeError(Path file, String message) throws IOException {
+        if (json) {
+            writer.write(first ? "  {" : ",\n  {");
+            writer.write("\"file\": " + jsonString(file.toString()) + ", \"error\": " + jsonString(message) + "}");
+        } else {
+            writer.write(csvString(file.toString()) + ",,,,,,,,," + csvString(message));
+            writer.newLine();
+        }
+        first = false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (json) {
+            writer.newLine();
+            writer.write("]");
+            writer.newLine();
+        }
+        writer.close();
+    }
+
+    // RS estimates of B, G, R, empty values for missing channels
+    private static String rsList(double[] rs, String separator) {
+        StringBuilder builder = new StringBuilder();
+        for (int c = 0; c < 3; c++) {
+            if (c > 0) {
+                builder.append(separator);
+            }
+            if (c < rs.length) {
+                builder.append(String.format(Locale.ROOT, "%.6f", rs[c]));
+            } else if (separator.length() > 1) {
+                builder.append("null");
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String csvString(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder("\"");
+        for (char ch : value.toCharArray()) {
+            if (ch == '"' || ch == '\\') {
+                builder.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                builder.append(String.format("\\u%04x", (int) ch));
+            } else {
+                builder.append(ch);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
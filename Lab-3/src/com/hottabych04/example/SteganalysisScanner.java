@@ -0,0 +1,139 @@
+package com.hottabych04.example;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Scans a directory tree of BMP and PNG images for LSB payloads with LsbAnalysis.
+ * Every image is one task of a ForkJoinPool, whose parallelism also bounds the number
+ * of decoded images held in memory at once. Results are written to the report as soon
+ * as each image is done, so their order is not that of the files.
+ * Usage: java SteganalysisScanner [image_dir] [report.csv|report.json] [threads]
+ */
+public class SteganalysisScanner {
+    // Analysis reads one bit per color channel, alpha is ignored
+    private static final LsbConfig ANALYSIS = new LsbConfig(1, false);
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java SteganalysisScanner [image_dir] [report.csv|report.json] [threads]");
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            Summary summary = scan(Paths.get(args[0]), Paths.get(args[1]), pool);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Scanned %d images (%d suspicious, %d unreadable) with %d threads in %.3f s%n",
+                    summary.images.get(), summary.suspicious.get(), summary.errors.get(), threads, seconds);
+            System.out.printf("%.1f images/s, %.1f Mpixels/s%n",
+                    summary.images.get() / seconds, summary.pixels.get() / seconds / 1e6);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static Summary scan(Path directory, Path report, ForkJoinPool pool) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream.filter(Files::isRegularFile).filter(SteganalysisScanner::isImage).sorted()
+                    .collect(Collectors.toList());
+        }
+
+        Summary summary = new Summary();
+        try (SteganalysisReport writer = new SteganalysisReport(report)) {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            for (Path file : files) {
+                tasks.add(new ImageTask(file, writer, summary));
+            }
+            try {
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        return summary;
+    }
+
+    static LsbAnalysis.Result analyze(BufferedImage image) {
+        ChannelLayout layout = ChannelLayout.of(image, ANALYSIS);
+        if (layout == null) {
+            layout = ChannelLayout.of(BMPSteganography.convert(image), ANALYSIS);
+        }
+        return LsbAnalysis.analyze(layout);
+    }
+
+    private static boolean isImage(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".bmp") || name.endsWith(".png");
+    }
+
+    public static class Summary {
+        public final AtomicInteger images = new AtomicInteger();
+        public final AtomicInteger suspicious = new AtomicInteger();
+        public final AtomicInteger errors = new AtomicInteger();
+        public final AtomicLong pixels = new AtomicLong();
+    }
+
+    private static class ImageTask extends RecursiveAction {
+        private final Path file;
+        private final SteganalysisReport writer;
+        private final Summary summary;
+
+        ImageTask(Path file, SteganalysisReport writer, Summary summary) {
+            this.file = file;
+            this.writer = writer;
+            this.summary = summary;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                BufferedImage image;
+                try {
+                    image = ImageIO.read(file.toFile());
+                } catch (IOException e) {
+                    image = null;
+                }
+                if (image == null) {
+                    summary.errors.incrementAndGet();
+                    writer.writeError(file, "Unsupported or damaged image");
+                    return;
+                }
+
+                LsbAnalysis.Result result = analyze(image);
+                summary.images.incrementAndGet();
+                summary.pixels.addAndGet((long) result.width * result.height);
+                if (result.suspicious()) {
+                    summary.suspicious.incrementAndGet();
+                }
+                writer.write(file, result);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.hottabych04.example;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the per-pixel getRGB/setRGB path with direct raster access in pixels/sec.
+ * Usage: java SteganographyBenchmark [bmp_file] [synthetic_megapixels]
+ * The 100-megapixel synthetic image needs about 300 MB of heap (-Xmx1g).
+ */
+public class SteganographyBenchmark {
+    public static void main(String[] args) throws IOException {
+        String bmpPath = args.length > 0 ? args[0] : "Lab-3/1.bmp";
+        int megapixels = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        BufferedImage bundled = ImageIO.read(new File(bmpPath));
+        run(bmpPath, bundled);
+
+        int side = (int) Math.sqrt(megapixels * 1_000_000.0);
+        BufferedImage synthetic = new BufferedImage(side, side, BufferedImage.TYPE_3BYTE_BGR);
+        new Random(1).nextBytes(((java.awt.image.DataBufferByte) synthetic.getRaster().getDataBuffer()).getData());
+        run("synthetic " + side + "x" + side, synthetic);
+    }
+
+    private static void run(String name, BufferedImage image) throws IOException {
+        long pixels = (long) image.getWidth() * image.getHeight();
+        Random random = new Random(42);
+
+        byte[] rgbPayload = payload(random, (int) (pixels - 1));
+        byte[] rasterPayload = payload(random,
+                (int) (ChannelLayout.of(image).capacity() - PayloadHeader.SIZE));
+
+        System.out.println(name + " (" + pixels + " pixels):");
+
+        // Warm-up on the same image
+        hideWithRgb(image, rgbPayload);
+        BMPSteganography.hide(image, rasterPayload);
+
+        long start = System.nanoTime();
+        hideWithRgb(image, rgbPayload);
+        report("getRGB/setRGB hide", pixels, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        extractWithRgb(image);
+        report("getRGB extract", pixels, System.nanoTime() - start);
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        start = System.nanoTime();
+        BMPSteganography.hide(image, rasterPayload, single);
+        report("raster hide, 1 thr", pixels, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        BMPSteganography.extract(image, single);
+        report("raster extract, 1 thr", pixels, System.nanoTime() - start);
+        single.shutdown();
+
+        int threads = ForkJoinPool.commonPool().getParallelism();
+        start = System.nanoTime();
+        BMPSteganography.hide(image, rasterPayload);
+        report("raster hide, " + threads + " thr", pixels, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        byte[] extracted = BMPSteganography.extract(image);
+        report("raster extract, " + threads + " thr", pixels, System.nanoTime() - start);
+
+        if (!Arrays.equals(extracted, rasterPayload)) {
+            System.out.println("  ERROR: extracted data differs from the hidden data");
+        }
+    }
+
+    private static byte[] payload(Random random, int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    // The pre-raster implementation: one hidden byte per pixel through the ColorModel
+    private static void hideWithRgb(BufferedImage image, byte[] data) {
+        int width = image.getWidth();
+        int index = 0;
+        for (int y = 0; y < image.getHeight() && index < data.length; y++) {
+            for (int x = 0; x < width && index < data.length; x++) {
+                image.setRGB(x, y, BMPSteganography.hideByteInPixel(image.getRGB(x, y), data[index++]));
+            }
+        }
+    }
+
+    private static long extractWithRgb(BufferedImage image) {
+        long checksum = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                checksum += BMPSteganography.extractByteFromPixel(image.getRGB(x, y));
+            }
+        }
+        return checksum;
+    }
+
+    private static void report(String label, long pixels, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("  %-24s %8.1f ms %12.1f Mpixels/s%n", label, seconds * 1e3, pixels / seconds / 1e6);
+    }
+}
@@ -0,0 +1,182 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32C;
+
+/**
+ * Embeds and extracts data in uncompressed 24/32-bit BMP files without decoding the image.
+ * Rows are read through FileChannel in windows of at most WINDOW_SIZE bytes, so memory
+ * use does not depend on the image size. The channel order and bit layout are the same
+ * as for ChannelLayout over a decoded image, so both paths read each other's output.
+ * Inside a window the rows are processed in parallel bands.
+ */
+public class StreamingBmp {
+    private static final int WINDOW_SIZE = 4 * 1024 * 1024;
+
+    // True for the BMP files this class can process, other images go through ImageIO
+    public static boolean isSupported(Path bmp) {
+        try (FileChannel channel = FileChannel.open(bmp, StandardOpenOption.READ)) {
+            BmpHeader.read(channel);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static void embedInPlace(Path bmp, byte[] data) throws IOException {
+        embedInPlace(bmp, data, ForkJoinPool.commonPool());
+    }
+
+    public static void embedInPlace(Path bmp, byte[] data, ForkJoinPool pool) throws IOException {
+        embedInPlace(bmp, data, LsbConfig.DEFAULT, pool);
+    }
+
+    // Hides the payload header and data in place, only the rows holding them are rewritten
+    public static void embedInPlace(Path bmp, byte[] data, LsbConfig config, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(bmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            BmpHeader header = BmpHeader.read(channel);
+            if ((long) data.length + PayloadHeader.SIZE > header.capacity(config)) {
+                throw new IOException("Text file too large for this image");
+            }
+
+            int rowsPerWindow = rowsPerWindow(header);
+            // Number of data bytes written, the header goes into the first window
+            int written = 0;
+            for (int row = 0; written < data.length || row == 0; row += rowsPerWindow) {
+                int rows = Math.min(rowsPerWindow, header.height - row);
+                Window window = readWindow(channel, header, row, rows, config);
+                long capacity = window.layout.capacity();
+                long streamOffset = 0;
+                if (row == 0) {
+                    window.layout.embed(PayloadHeader.encode(data), 0, PayloadHeader.SIZE, 0);
+                    capacity -= PayloadHeader.SIZE;
+                    streamOffset = PayloadHeader.SIZE;
+                }
+                int length = (int) Math.min(data.length - written, capacity);
+                window.layout.embed(pool, data, written, length, streamOffset);
+                written += length;
+                writeWindow(channel, window);
+            }
+        }
+    }
+
+    // Copies the file and hides data in the copy
+    public static void embed(Path source, Path target, byte[] data) throws IOException {
+        embed(source, target, data, ForkJoinPool.commonPool());
+    }
+
+    public static void embed(Path source, Path target, byte[] data, ForkJoinPool pool) throws IOException {
+        embed(source, target, data, LsbConfig.DEFAULT, pool);
+    }
+
+    public static void embed(Path source, Path target, byte[] data, LsbConfig config, ForkJoinPool pool)
+            throws IOException {
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        embedInPlace(target, data, config, pool);
+    }
+
+    public static long extract(Path bmp, OutputStream out) throws IOException {
+        return extract(bmp, out, ForkJoinPool.commonPool());
+    }
+
+    public static long extract(Path bmp, OutputStream out, ForkJoinPool pool) throws IOException {
+        return extract(bmp, out, LsbConfig.DEFAULT, pool);
+    }
+
+    /**
+     * Streams the hidden data into out and returns its length. Only the rows holding
+     * the payload are read. The checksum is verified once all the data has been written.
+     */
+    public static long extract(Path bmp, OutputStream out, LsbConfig config, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(bmp, StandardOpenOption.READ)) {
+            BmpHeader header = BmpHeader.read(channel);
+            int rowsPerWindow = rowsPerWindow(header);
+            PayloadHeader payload = null;
+            CRC32C crc = null;
+            byte[] block = null;
+            long remaining = 0;
+
+            for (int row = 0; row == 0 || remaining > 0; row += rowsPerWindow) {
+                int rows = Math.min(rowsPerWindow, header.height - row);
+                Window window = readWindow(channel, header, row, rows, config);
+                long capacity = window.layout.capacity();
+                long streamOffset = 0;
+                if (row == 0) {
+                    if (capacity < PayloadHeader.SIZE) {
+                        throw new NoHiddenDataException("No hidden data found in this image");
+                    }
+                    byte[] headerBytes = new byte[PayloadHeader.SIZE];
+                    window.layout.extract(headerBytes, 0, PayloadHeader.SIZE, 0);
+                    payload = PayloadHeader.decode(headerBytes, header.capacity(config));
+                    remaining = payload.length;
+                    crc = payload.newChecksum();
+                    capacity -= PayloadHeader.SIZE;
+                    streamOffset = PayloadHeader.SIZE;
+                    block = new byte[(int) Math.min(remaining, window.layout.capacity())];
+                }
+
+                int length = (int) Math.min(remaining, capacity);
+                window.layout.extract(pool, block, 0, length, streamOffset);
+                crc.update(block, 0, length);
+                out.write(block, 0, length);
+                remaining -= length;
+            }
+            payload.verify(crc);
+            return payload.length;
+        }
+    }
+
+    /**
+     * Rows per window, a multiple of 8 so that at any depth every window except the
+     * last holds a whole number of hidden bytes and windows can be handled independently.
+     */
+    private static int rowsPerWindow(BmpHeader header) {
+        return Math.max(8, WINDOW_SIZE / header.rowStride / 8 * 8);
+    }
+
+    private static Window readWindow(FileChannel channel, BmpHeader header, int row, int rows, LsbConfig config)
+            throws IOException {
+        // Logical rows [row, row + rows) are contiguous in the file, in reverse order for bottom-up files
+        long position = header.rowPosition(header.topDown ? row : row + rows - 1);
+        byte[] bytes = new byte[rows * header.rowStride];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("BMP file is truncated");
+            }
+        }
+
+        int base = header.topDown ? 0 : (rows - 1) * header.rowStride;
+        int stride = header.topDown ? header.rowStride : -header.rowStride;
+        ChannelLayout layout = ChannelLayout.forRows(bytes, base, stride, header.bytesPerPixel,
+                header.channelCount, header.width, rows, config);
+        return new Window(position, bytes, layout);
+    }
+
+    private static void writeWindow(FileChannel channel, Window window) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(window.bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, window.position + buffer.position());
+        }
+    }
+
+    private static class Window {
+        final long position;
+        final byte[] bytes;
+        final ChannelLayout layout;
+
+        Window(long position, byte[] bytes, ChannelLayout layout) {
+            this.position = position;
+            this.bytes = bytes;
+            this.layout = layout;
+        }
+    }
+}
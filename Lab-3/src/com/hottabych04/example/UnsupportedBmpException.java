@@ -0,0 +1,10 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+
+// The file was read, but it is not a BMP file StreamingBmp can process
+public class UnsupportedBmpException extends IOException {
+    public UnsupportedBmpException(String message) {
+        super(message);
+    }
+}
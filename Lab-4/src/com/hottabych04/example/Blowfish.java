@@ -1,9 +1,26 @@
 package com.hottabych04.example;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Состояние ключа хранится в экземпляре и после конструктора не меняется,
+ * поэтому один экземпляр можно использовать из нескольких потоков,
+ * а экземпляры с разными ключами работают независимо.
+ *
+ * Пакетные методы encrypt/decrypt обрабатывают данные на месте блоками по 8 байт
+ * в порядке big-endian (L - первые 4 байта блока) и не создают объектов на блок.
+ */
 public class Blowfish {
     private static final int N = 16; // Количество раундов
-    private static final int[] P = new int[N + 2]; // P-раундовые ключи
-    private static final int[][] S = new int[4][256]; // S-блоки
+    private final int[] P = new int[N + 2]; // P-раундовые ключи
+    // S-блоки подряд в одном массиве: блок i занимает элементы [256 * i, 256 * i + 256).
+    // Расписание ключа меняет только P, поэтому все экземпляры читают общий S_INIT_FLAT
+    private final int[] S;
+    public static final int BLOCK_SIZE = 8;
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
     // Исходные P-блоки и S-блоки (укороченный пример, требуется инициализация)
     private static final int[] P_INIT = {
@@ -152,14 +169,23 @@ public class Blowfish {
             }
     };
 
+    // S_INIT в том же плоском виде, что и S; массив только читается
+    private static final int[] S_INIT_FLAT = flatten(S_INIT);
+
     public Blowfish(byte[] key) {
         System.arraycopy(P_INIT, 0, P, 0, P_INIT.length);
-        for (int i = 0; i < S.length; i++) {
-            System.arraycopy(S_INIT[i], 0, S[i], 0, S_INIT[i].length);
-        }
+        S = S_INIT_FLAT;
         keySchedule(key);
     }
 
+    private static int[] flatten(int[][] boxes) {
+        int[] flat = new int[4 * 256];
+        for (int i = 0; i < boxes.length; i++) {
+            System.arraycopy(boxes[i], 0, flat, i * 256, 256);
+        }
+        return flat;
+    }
+
     private void keySchedule(byte[] key) {
         int keyLen = key.length;
         int j = 0;
@@ -171,52 +197,117 @@ public class Blowfish {
             }
             P[i] ^= data;
         }
-        int L = 0, R = 0;
         for (int i = 0; i < P.length; i += 2) {
-            int[] encrypted = encryptBlock(L, R);
-            P[i] = encrypted[0];
-            P[i + 1] = encrypted[1];
+            long encrypted = encryptBlock(0L);
+            P[i] = (int) (encrypted >>> 32);
+            P[i + 1] = (int) encrypted;
         }
     }
 
     private int F(int x) {
-        int h = S[0][(x >> 24) & 0xFF]
-                + S[1][(x >> 16) & 0xFF];
-        h ^= S[2][(x >> 8) & 0xFF];
-        h += S[3][x & 0xFF];
+        int h = S[x >>> 24]
+                + S[0x100 | ((x >>> 16) & 0xFF)];
+        h ^= S[0x200 | ((x >>> 8) & 0xFF)];
+        h += S[0x300 | (x & 0xFF)];
         return h;
     }
 
     public int[] encryptBlock(int L, int R) {
-        for (int i = 0; i < N; i++) {
+        long block = encryptBlock(((long) L << 32) | (R & 0xFFFFFFFFL));
+        return new int[]{(int) (block >>> 32), (int) block};
+    }
+
+    public int[] decryptBlock(int L, int R) {
+        long block = decryptBlock(((long) L << 32) | (R & 0xFFFFFFFFL));
+        return new int[]{(int) (block >>> 32), (int) block};
+    }
+
+    // Блок как long: старшие 32 бита - L, младшие - R
+    public long encryptBlock(long block) {
+        int L = (int) (block >>> 32);
+        int R = (int) block;
+        for (int i = 0; i < N; i += 2) {
             L ^= P[i];
             R ^= F(L);
-            int temp = L;
-            L = R;
-            R = temp;
+            R ^= P[i + 1];
+            L ^= F(R);
         }
-        int temp = L;
-        L = R;
-        R = temp;
-        R ^= P[N];
-        L ^= P[N + 1];
-        return new int[]{L, R};
+        R ^= P[N + 1];
+        L ^= P[N];
+        return ((long) R << 32) | (L & 0xFFFFFFFFL);
     }
 
-    public int[] decryptBlock(int L, int R) {
-        for (int i = N + 1; i > 1; i--) {
+    public long decryptBlock(long block) {
+        int L = (int) (block >>> 32);
+        int R = (int) block;
+        for (int i = N + 1; i > 1; i -= 2) {
             L ^= P[i];
             R ^= F(L);
-            int temp = L;
-            L = R;
-            R = temp;
+            R ^= P[i - 1];
+            L ^= F(R);
+        }
+        R ^= P[0];
+        L ^= P[1];
+        return ((long) R << 32) | (L & 0xFFFFFFFFL);
+    }
+
+    // Шифрует data[off, off + len) на месте, len должна быть кратна 8
+    public void encrypt(byte[] data, int off, int len) {
+        checkRange(data.length, off, len);
+        for (int i = off; i < off + len; i += BLOCK_SIZE) {
+            LONG_BE.set(data, i, encryptBlock((long) LONG_BE.get(data, i)));
+        }
+    }
+
+    public void decrypt(byte[] data, int off, int len) {
+        checkRange(data.length, off, len);
+        for (int i = off; i < off + len; i += BLOCK_SIZE) {
+            LONG_BE.set(data, i, decryptBlock((long) LONG_BE.get(data, i)));
+        }
+    }
+
+    // Шифрует на месте байты от position до limit и переводит position в limit
+    public void encrypt(ByteBuffer buffer) {
+        process(buffer, true);
+    }
+
+    public void decrypt(ByteBuffer buffer) {
+        process(buffer, false);
+    }
+
+    private void process(ByteBuffer buffer, boolean encrypt) {
+        int position = buffer.position();
+        int length = buffer.remaining();
+        if (buffer.hasArray()) {
+            int off = buffer.arrayOffset() + position;
+            if (encrypt) {
+                encrypt(buffer.array(), off, length);
+            } else {
+                decrypt(buffer.array(), off, length);
+            }
+        } else {
+            checkRange(buffer.limit(), position, length);
+            // Порядок байт буфера не меняется, блоки всегда читаются как big-endian
+            boolean swap = buffer.order() != ByteOrder.BIG_ENDIAN;
+            for (int i = position; i < position + length; i += BLOCK_SIZE) {
+                long block = buffer.getLong(i);
+                if (swap) {
+                    block = Long.reverseBytes(block);
+                }
+                block = encrypt ? encryptBlock(block) : decryptBlock(block);
+                buffer.putLong(i, swap ? Long.reverseBytes(block) : block);
+            }
+        }
+        buffer.position(position + length);
+    }
+
+    private static void checkRange(int size, int off, int len) {
+        if (off < 0 || len < 0 || off > size - len) {
+            throw new IndexOutOfBoundsException("Диапазон " + off + ".." + (off + len) + " вне массива длины " + size);
+        }
+        if (len % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("Длина данных должна быть кратна " + BLOCK_SIZE + " байтам: " + len);
         }
-        int temp = L;
-        L = R;
-        R = temp;
-        R ^= P[1];
-        L ^= P[0];
-        return new int[]{L, R};
     }
 
     public static void main(String[] args) {
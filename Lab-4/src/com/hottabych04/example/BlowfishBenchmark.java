@@ -0,0 +1,77 @@
+package com.hottabych04.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Пропускная способность шифрования блоков в зависимости от числа потоков.
+ * Каждый поток работает со своим экземпляром и своим ключом.
+ * Запуск: java BlowfishBenchmark [максимум потоков] [секунд на замер]
+ */
+public class BlowfishBenchmark {
+    private static final int BATCH = 4096; // Блоков между проверками времени
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        // Прогрев, чтобы JIT скомпилировал шифрование до замеров
+        measure(1, 1);
+
+        System.out.printf("%-8s %12s %10s%n", "Потоков", "МБ/с", "Ускорение");
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double mbPerSecond = measure(threads, seconds);
+            if (threads == 1) {
+                single = mbPerSecond;
+            }
+            System.out.printf("%-8d %12.1f %9.2fx%n", threads, mbPerSecond, mbPerSecond / single);
+            if (threads < maxThreads && threads * 2 > maxThreads) {
+                threads = maxThreads / 2;
+            }
+        }
+    }
+
+    private static double measure(int threads, double seconds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long duration = (long) (seconds * 1e9);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            byte[] key = new byte[16];
+            new Random(t).nextBytes(key);
+            Blowfish cipher = new Blowfish(key);
+            results.add(executor.submit(() -> {
+                start.await();
+                long begin = System.nanoTime();
+                long blocks = 0;
+                int L = 0;
+                int R = 0;
+                while (System.nanoTime() - begin < duration) {
+                    for (int i = 0; i < BATCH; i++) {
+                        int[] block = cipher.encryptBlock(L, R);
+                        L = block[0];
+                        R = block[1];
+                    }
+                    blocks += BATCH;
+                }
+                // Результат участвует в подсчёте, чтобы JIT не удалил цикл
+                return blocks + ((L ^ R) == 0x7FFFFFFF ? 1 : 0);
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long blocks = 0;
+        for (Future<Long> result : results) {
+            blocks += result.get();
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        executor.shutdown();
+        return blocks * 8 / elapsed / (1024 * 1024);
+    }
+}
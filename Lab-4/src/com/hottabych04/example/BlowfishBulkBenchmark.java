@@ -0,0 +1,82 @@
+package com.hottabych04.example;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Сравнение поблочного API с int[] и пакетных методов: МБ/с и байт выделенной памяти
+ * на блок. JMH в проекте не подключен, поэтому выделения считаются через
+ * com.sun.management.ThreadMXBean.getThreadAllocatedBytes текущего потока.
+ * В таком простом цикле C2 может убрать массив int[] анализом убегания; с флагом
+ * -XX:-DoEscapeAnalysis видно 24 байта на блок, как там, где вызов не встраивается.
+ * Запуск: java BlowfishBulkBenchmark [размер буфера в КБ] [повторов]
+ */
+public class BlowfishBulkBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int size = (args.length > 0 ? Integer.parseInt(args[0]) : 64) * 1024;
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        byte[] key = new byte[16];
+        new Random(1).nextBytes(key);
+        Blowfish cipher = new Blowfish(key);
+
+        byte[] array = new byte[size];
+        new Random(2).nextBytes(array);
+        ByteBuffer heap = ByteBuffer.allocate(size);
+        ByteBuffer direct = ByteBuffer.allocateDirect(size);
+
+        Runnable[] modes = {
+                () -> {
+                    for (int i = 0; i < size; i += 8) {
+                        int[] block = cipher.encryptBlock(readInt(array, i), readInt(array, i + 4));
+                        writeInt(array, i, block[0]);
+                        writeInt(array, i + 4, block[1]);
+                    }
+                },
+                () -> cipher.encrypt(array, 0, size),
+                () -> {
+                    heap.clear();
+                    cipher.encrypt(heap);
+                },
+                () -> {
+                    direct.clear();
+                    cipher.encrypt(direct);
+                }
+        };
+        String[] names = {"encryptBlock(int, int)", "encrypt(byte[])", "encrypt(heap ByteBuffer)", "encrypt(direct ByteBuffer)"};
+
+        System.out.printf("%-28s %10s %14s%n", "Метод", "МБ/с", "байт на блок");
+        for (int m = 0; m < modes.length; m++) {
+            // Прогрев
+            for (int i = 0; i < repeats / 4; i++) {
+                modes[m].run();
+            }
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+            long start = System.nanoTime();
+            for (int i = 0; i < repeats; i++) {
+                modes[m].run();
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+
+            double bytes = (double) size * repeats;
+            System.out.printf("%-28s %10.1f %14.2f%n", names[m],
+                    bytes / (elapsed / 1e9) / (1024 * 1024), allocated / (bytes / Blowfish.BLOCK_SIZE));
+        }
+    }
+
+    private static int readInt(byte[] data, int i) {
+        return (data[i] << 24) | ((data[i + 1] & 0xFF) << 16) | ((data[i + 2] & 0xFF) << 8) | (data[i + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] data, int i, int value) {
+        data[i] = (byte) (value >>> 24);
+        data[i + 1] = (byte) (value >>> 16);
+        data[i + 2] = (byte) (value >>> 8);
+        data[i + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,155 @@
+package com.hottabych04.example;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Расшифрование потока, записанного BlowfishCbcOutputStream: iv, затем блоки CBC
+ * с дополнением PKCS#5. Последний блок удерживается до конца потока, чтобы снять
+ * дополнение; неверное дополнение или неполный блок дают IOException.
+ */
+public class BlowfishCbcInputStream extends FilterInputStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Blowfish cipher;
+    // Прочитанный шифртекст, расшифрованный на месте в [0, ready)
+    private final byte[] buffer = new byte[BUFFER_SIZE + Blowfish.BLOCK_SIZE];
+    // [position, ready) - готовый открытый текст, [ready, count) - ещё не расшифрованные байты
+    private int position;
+    private int ready;
+    private int count;
+    private long previous;
+    private boolean started;
+    private boolean finished;
+    private final byte[] single = new byte[1];
+
+    public BlowfishCbcInputStream(InputStream in, Blowfish cipher) {
+        super(in);
+        this.cipher = cipher;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position == ready) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, ready - position);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] scratch = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(scratch, 0, (int) Math.min(scratch.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return ready - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void fill() throws IOException {
+        if (!started) {
+            byte[] header = new byte[Blowfish.BLOCK_SIZE];
+            if (readFully(header, 0, header.length) < header.length) {
+                throw new IOException("Поток короче заголовка CBC");
+            }
+            previous = (long) LONG_BE.get(header, 0);
+            started = true;
+        }
+
+        // Переносим нерасшифрованный остаток в начало и дочитываем
+        System.arraycopy(buffer, ready, buffer, 0, count - ready);
+        count -= ready;
+        position = 0;
+        ready = 0;
+        int read = in.read(buffer, count, buffer.length - count);
+        if (read > 0) {
+            count += read;
+        }
+
+        if (read < 0) {
+            finished = true;
+            if (count == 0 || count % Blowfish.BLOCK_SIZE != 0) {
+                throw new IOException("Длина шифртекста CBC не кратна размеру блока");
+            }
+            decryptBlocks(count);
+            int padding = buffer[count - 1] & 0xFF;
+            if (padding < 1 || padding > Blowfish.BLOCK_SIZE) {
+                throw new IOException("Неверное дополнение PKCS#5");
+            }
+            for (int i = count - padding; i < count; i++) {
+                if (buffer[i] != (byte) padding) {
+                    throw new IOException("Неверное дополнение PKCS#5");
+                }
+            }
+            ready = count - padding;
+            count = ready;
+            return;
+        }
+
+        // Последний полный блок оставляем: он может оказаться блоком с дополнением
+        int full = count - count % Blowfish.BLOCK_SIZE;
+        if (full == count) {
+            full -= Blowfish.BLOCK_SIZE;
+        }
+        if (full > 0) {
+            decryptBlocks(full);
+            ready = full;
+        }
+    }
+
+    private void decryptBlocks(int end) {
+        long chain = previous;
+        for (int i = ready; i < end; i += Blowfish.BLOCK_SIZE) {
+            long block = (long) LONG_BE.get(buffer, i);
+            LONG_BE.set(buffer, i, cipher.decryptBlock(block) ^ chain);
+            chain = block;
+        }
+        previous = chain;
+    }
+
+    private int readFully(byte[] b, int off, int len) throws IOException {
+        int total = 0;
+        while (total < len) {
+            int n = in.read(b, off + total, len - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
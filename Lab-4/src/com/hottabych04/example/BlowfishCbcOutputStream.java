@@ -0,0 +1,106 @@
+package com.hottabych04.example;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.SecureRandom;
+
+/**
+ * Шифрование в режиме CBC с дополнением PKCS#5 при записи в поток.
+ * Первыми в поток пишутся 8 байт iv, дополнение добавляется в close().
+ */
+public class BlowfishCbcOutputStream extends FilterOutputStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Blowfish cipher;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    // Предыдущий блок шифртекста, для первого блока - iv
+    private long previous;
+    private boolean closed;
+
+    public BlowfishCbcOutputStream(OutputStream out, Blowfish cipher) throws IOException {
+        this(out, cipher, new SecureRandom().nextLong());
+    }
+
+    public BlowfishCbcOutputStream(OutputStream out, Blowfish cipher, long iv) throws IOException {
+        super(out);
+        this.cipher = cipher;
+        this.previous = iv;
+        byte[] header = new byte[Blowfish.BLOCK_SIZE];
+        LONG_BE.set(header, 0, iv);
+        out.write(header);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        buffer[count++] = (byte) b;
+        if (count == buffer.length) {
+            flushBlocks();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == buffer.length) {
+                flushBlocks();
+            }
+        }
+    }
+
+    // Шифрует и отправляет все полные блоки буфера, остаток переносится в начало
+    private void flushBlocks() throws IOException {
+        int full = count - count % Blowfish.BLOCK_SIZE;
+        encryptBlocks(full);
+        out.write(buffer, 0, full);
+        System.arraycopy(buffer, full, buffer, 0, count - full);
+        count -= full;
+    }
+
+    private void encryptBlocks(int length) {
+        long chain = previous;
+        for (int i = 0; i < length; i += Blowfish.BLOCK_SIZE) {
+            chain = cipher.encryptBlock((long) LONG_BE.get(buffer, i) ^ chain);
+            LONG_BE.set(buffer, i, chain);
+        }
+        previous = chain;
+    }
+
+    // Неполный блок остаётся в буфере до close(), так как к нему добавится дополнение
+    @Override
+    public void flush() throws IOException {
+        flushBlocks();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlocks();
+            // PKCS#5: от 1 до 8 байт, каждый равен числу добавленных байт
+            int padding = Blowfish.BLOCK_SIZE - count;
+            for (int i = 0; i < padding; i++) {
+                buffer[count++] = (byte) padding;
+            }
+            encryptBlocks(count);
+            out.write(buffer, 0, count);
+            count = 0;
+        } finally {
+            out.close();
+        }
+    }
+}
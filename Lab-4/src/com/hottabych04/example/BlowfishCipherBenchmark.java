@@ -0,0 +1,78 @@
+package com.hottabych04.example;
+
+import java.nio.ByteBuffer;
+import java.security.Provider;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Пропускная способность javax.crypto.Cipher с BlowfishProvider и со встроенным Blowfish JDK
+ * на массивах и на прямых ByteBuffer. Шифртексты провайдеров различаются,
+ * так как расписание ключа в этой реализации нестандартное.
+ * Запуск: java BlowfishCipherBenchmark [размер буфера в КБ] [секунд на замер]
+ */
+public class BlowfishCipherBenchmark {
+    private static final String[] TRANSFORMATIONS = {
+            "Blowfish/ECB/NoPadding", "Blowfish/CBC/NoPadding", "Blowfish/CTR/NoPadding"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int size = (args.length > 0 ? Integer.parseInt(args[0]) : 64) * 1024;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+
+        byte[] keyBytes = new byte[16];
+        new Random(1).nextBytes(keyBytes);
+        SecretKeySpec key = new SecretKeySpec(keyBytes, "Blowfish");
+        byte[] input = new byte[size];
+        new Random(2).nextBytes(input);
+        byte[] output = new byte[size];
+        ByteBuffer directIn = ByteBuffer.allocateDirect(size);
+        directIn.put(input).flip();
+        ByteBuffer directOut = ByteBuffer.allocateDirect(size);
+
+        Provider[] providers = {new BlowfishProvider(), Cipher.getInstance("Blowfish").getProvider()};
+
+        System.out.printf("%-24s %-18s %12s %12s%n", "Преобразование", "Провайдер", "byte[], МБ/с", "direct, МБ/с");
+        for (String transformation : TRANSFORMATIONS) {
+            for (Provider provider : providers) {
+                Cipher cipher = Cipher.getInstance(transformation, provider);
+                if (transformation.contains("ECB")) {
+                    cipher.init(Cipher.ENCRYPT_MODE, key);
+                } else {
+                    cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(new byte[8]));
+                }
+
+                double arrays = measure(seconds, size, () -> cipher.doFinal(input, 0, size, output, 0));
+                double direct = measure(seconds, size, () -> {
+                    directIn.rewind();
+                    directOut.clear();
+                    cipher.doFinal(directIn, directOut);
+                });
+                System.out.printf("%-24s %-18s %12.1f %12.1f%n", transformation, provider.getName(), arrays, direct);
+            }
+        }
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    // МБ/с за seconds секунд после прогрева той же длительности
+    private static double measure(double seconds, int size, Operation operation) throws Exception {
+        long duration = (long) (seconds * 1e9);
+        for (long end = System.nanoTime() + duration; System.nanoTime() < end; ) {
+            operation.run();
+        }
+        long count = 0;
+        long start = System.nanoTime();
+        long now;
+        do {
+            operation.run();
+            count++;
+            now = System.nanoTime();
+        } while (now - start < duration);
+        return count * (double) size / ((now - start) / 1e9) / (1024 * 1024);
+    }
+}
@@ -0,0 +1,441 @@
+package com.hottabych04.example;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.InvalidParameterSpecException;
+import java.util.Arrays;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.CipherSpi;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * Реализация Cipher для BlowfishProvider. Целые блоки обрабатываются на месте в выходном
+ * массиве пакетными методами Blowfish и encryptBlock(long), без int[] на блок.
+ * Между вызовами update хранится не больше одного блока: неполный хвост, а при
+ * расшифровании с PKCS5Padding - последний целый блок, в котором может быть дополнение.
+ * Прямые ByteBuffer проходят через один переиспользуемый массив частями по SCRATCH_SIZE.
+ * Экземпляры Blowfish берутся из общего BlowfishKeyCache, поэтому повторный init
+ * с тем же ключом не строит расписание заново.
+ */
+public class BlowfishCipherSpi extends CipherSpi {
+    private static final int BLOCK = Blowfish.BLOCK_SIZE;
+    private static final int SCRATCH_SIZE = 64 * 1024;
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final BlowfishKeyCache KEYS = new BlowfishKeyCache(1024);
+
+    private enum Mode { ECB, CBC, CTR }
+
+    private Mode mode = Mode.ECB;
+    private boolean padding = true;
+
+    private Blowfish cipher;
+    private boolean encrypt;
+    private byte[] iv;
+    // CBC: предыдущий блок шифртекста; CTR: позиция в потоке
+    private long chain;
+    private long position;
+    private BlowfishCtr ctr;
+
+    // Необработанные байты; spare нужен, чтобы сохранить новый хвост до перезаписи buffer
+    private byte[] buffer = new byte[BLOCK];
+    private byte[] spare = new byte[BLOCK];
+    private int buffered;
+    private byte[] scratch;
+
+    public BlowfishCipherSpi() {
+    }
+
+    @Override
+    protected void engineSetMode(String name) throws NoSuchAlgorithmException {
+        try {
+            mode = Mode.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new NoSuchAlgorithmException("Режим не поддерживается: " + name);
+        }
+    }
+
+    @Override
+    protected void engineSetPadding(String name) throws NoSuchPaddingException {
+        if ("NoPadding".equalsIgnoreCase(name)) {
+            padding = false;
+        } else if ("PKCS5Padding".equalsIgnoreCase(name)) {
+            padding = true;
+        } else {
+            throw new NoSuchPaddingException("Дополнение не поддерживается: " + name);
+        }
+    }
+
+    @Override
+    protected int engineGetBlockSize() {
+        return BLOCK;
+    }
+
+    @Override
+    protected int engineGetOutputSize(int inputLen) {
+        int total = buffered + inputLen;
+        if (isPadded() && encrypt) {
+            return total / BLOCK * BLOCK + BLOCK;
+        }
+        return total;
+    }
+
+    @Override
+    protected byte[] engineGetIV() {
+        return iv == null ? null : iv.clone();
+    }
+
+    @Override
+    protected AlgorithmParameters engineGetParameters() {
+        if (iv == null) {
+            return null;
+        }
+        try {
+            AlgorithmParameters params = AlgorithmParameters.getInstance("Blowfish");
+            params.init(new IvParameterSpec(iv));
+            return params;
+        } catch (NoSuchAlgorithmException | InvalidParameterSpecException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected int engineGetKeySize(Key key) throws InvalidKeyException {
+        return rawKey(key).length * 8;
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, SecureRandom random) throws InvalidKeyException {
+        try {
+            engineInit(opmode, key, (AlgorithmParameterSpec) null, random);
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new InvalidKeyException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, AlgorithmParameters params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        IvParameterSpec spec = null;
+        if (params != null) {
+            try {
+                spec = params.getParameterSpec(IvParameterSpec.class);
+            } catch (InvalidParameterSpecException e) {
+                throw new InvalidAlgorithmParameterException("Ожидался IV", e);
+            }
+        }
+        engineInit(opmode, key, spec, random);
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, AlgorithmParameterSpec params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        encrypt = opmode == Cipher.ENCRYPT_MODE || opmode == Cipher.WRAP_MODE;
+        byte[] newIv = null;
+        if (params != null) {
+            if (!(params instanceof IvParameterSpec)) {
+                throw new InvalidAlgorithmParameterException("Ожидался IvParameterSpec");
+            }
+            newIv = ((IvParameterSpec) params).getIV();
+            if (newIv.length != BLOCK) {
+                throw new InvalidAlgorithmParameterException("IV должен быть длиной " + BLOCK + " байт");
+            }
+        }
+
+        if (mode == Mode.ECB) {
+            if (newIv != null) {
+                throw new InvalidAlgorithmParameterException("В режиме ECB IV не используется");
+            }
+        } else if (newIv == null) {
+            if (!encrypt) {
+                throw new InvalidAlgorithmParameterException("Для расшифрования нужен IV");
+            }
+            newIv = new byte[BLOCK];
+            (random != null ? random : new SecureRandom()).nextBytes(newIv);
+        }
+
+        cipher = KEYS.get(rawKey(key));
+        iv = newIv;
+        ctr = mode == Mode.CTR ? new BlowfishCtr(cipher, (long) LONG_BE.get(iv, 0)) : null;
+        reset();
+    }
+
+    @Override
+    protected byte[] engineUpdate(byte[] input, int inputOffset, int inputLen) {
+        byte[] output = new byte[updateLength(inputLen)];
+        try {
+            engineUpdate(input, inputOffset, inputLen, output, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        return output;
+    }
+
+    @Override
+    protected int engineUpdate(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException {
+        checkInitialized();
+        int length = updateLength(inputLen);
+        if (output.length - outputOffset < length) {
+            throw new ShortBufferException("Нужно " + length + " байт в выходном буфере");
+        }
+        if (mode == Mode.CTR) {
+            System.arraycopy(input, inputOffset, output, outputOffset, inputLen);
+            ctr.apply(position, output, outputOffset, inputLen);
+            position += inputLen;
+            return inputLen;
+        }
+        if (length == 0) {
+            System.arraycopy(input, inputOffset, buffer, buffered, inputLen);
+            buffered += inputLen;
+            return 0;
+        }
+
+        // Порядок копирования допускает пересечение input и output
+        int consumed = length - buffered;
+        int rest = inputLen - consumed;
+        System.arraycopy(input, inputOffset + consumed, spare, 0, rest);
+        System.arraycopy(input, inputOffset, output, outputOffset + buffered, consumed);
+        System.arraycopy(buffer, 0, output, outputOffset, buffered);
+        byte[] swap = buffer;
+        buffer = spare;
+        spare = swap;
+        buffered = rest;
+
+        processBlocks(output, outputOffset, length);
+        return length;
+    }
+
+    @Override
+    protected byte[] engineDoFinal(byte[] input, int inputOffset, int inputLen)
+            throws IllegalBlockSizeException, BadPaddingException {
+        checkInitialized();
+        byte[] output = new byte[engineGetOutputSize(inputLen)];
+        int length;
+        try {
+            length = engineDoFinal(input, inputOffset, inputLen, output, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        return length == output.length ? output : Arrays.copyOf(output, length);
+    }
+
+    @Override
+    protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        checkInitialized();
+        if (input == null) {
+            input = spare;
+            inputLen = 0;
+        }
+        int total = buffered + inputLen;
+        if (mode == Mode.CTR) {
+            int length = engineUpdate(input, inputOffset, inputLen, output, outputOffset);
+            reset();
+            return length;
+        }
+        if (!isPadded() && total % BLOCK != 0) {
+            throw new IllegalBlockSizeException("Длина данных не кратна " + BLOCK + " байтам");
+        }
+        if (isPadded() && encrypt) {
+            return finishPadded(input, inputOffset, inputLen, output, outputOffset);
+        }
+        if (!isPadded()) {
+            int length = engineUpdate(input, inputOffset, inputLen, output, outputOffset);
+            reset();
+            return length;
+        }
+
+        // Расшифрование с PKCS5Padding: длина ответа известна только после последнего блока
+        if (total % BLOCK != 0 || total == 0) {
+            throw new IllegalBlockSizeException("Длина шифртекста не кратна " + BLOCK + " байтам");
+        }
+        long last = byteBlock(input, inputOffset, total - BLOCK);
+        long previous = total >= 2 * BLOCK ? byteBlock(input, inputOffset, total - 2 * BLOCK) : chain;
+        long plain = cipher.decryptBlock(last);
+        if (mode == Mode.CBC) {
+            plain ^= previous;
+        }
+        int pad = (int) plain & 0xFF;
+        if (pad < 1 || pad > BLOCK) {
+            throw new BadPaddingException("Неверное дополнение PKCS#5");
+        }
+        for (int k = 1; k < pad; k++) {
+            if (((int) (plain >>> (8 * k)) & 0xFF) != pad) {
+                throw new BadPaddingException("Неверное дополнение PKCS#5");
+            }
+        }
+        int length = total - pad;
+        if (output.length - outputOffset < length) {
+            throw new ShortBufferException("Нужно " + length + " байт в выходном буфере");
+        }
+
+        // Все блоки, кроме последнего, идут через update; хвост последнего блока пишется отдельно
+        int head = engineUpdate(input, inputOffset, inputLen, output, outputOffset);
+        for (int k = 0; k < BLOCK - pad; k++) {
+            output[outputOffset + head + k] = (byte) (plain >>> (56 - 8 * k));
+        }
+        reset();
+        return length;
+    }
+
+    @Override
+    protected int engineUpdate(ByteBuffer input, ByteBuffer output) throws ShortBufferException {
+        if (input.hasArray() && output.hasArray()) {
+            return super.engineUpdate(input, output);
+        }
+        int inputLen = input.remaining();
+        if (output.remaining() < updateLength(inputLen)) {
+            throw new ShortBufferException("Нужно " + updateLength(inputLen) + " байт в выходном буфере");
+        }
+        return transfer(input, output, inputLen);
+    }
+
+    @Override
+    protected int engineDoFinal(ByteBuffer input, ByteBuffer output)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        if (input.hasArray() && output.hasArray()) {
+            return super.engineDoFinal(input, output);
+        }
+        int inputLen = input.remaining();
+        if (output.remaining() < engineGetOutputSize(inputLen)) {
+            throw new ShortBufferException("Нужно " + engineGetOutputSize(inputLen) + " байт в выходном буфере");
+        }
+        // Последняя часть остается для doFinal, остальное идет через update
+        int length = transfer(input, output, Math.max(0, inputLen - SCRATCH_SIZE));
+        byte[] chunk = scratch();
+        int rest = input.remaining();
+        input.get(chunk, 0, rest);
+        int produced = engineDoFinal(chunk, 0, rest, chunk, 0);
+        output.put(chunk, 0, produced);
+        return length + produced;
+    }
+
+    // Пропускает count байт input через update частями по SCRATCH_SIZE
+    private int transfer(ByteBuffer input, ByteBuffer output, int count) throws ShortBufferException {
+        byte[] chunk = scratch();
+        int length = 0;
+        while (count > 0) {
+            int n = Math.min(count, SCRATCH_SIZE);
+            input.get(chunk, 0, n);
+            int produced = engineUpdate(chunk, 0, n, chunk, 0);
+            output.put(chunk, 0, produced);
+            length += produced;
+            count -= n;
+        }
+        return length;
+    }
+
+    // Шифрование с PKCS5Padding: данные и дополнение собираются в output и шифруются за один проход
+    private int finishPadded(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException {
+        int total = buffered + inputLen;
+        int length = total / BLOCK * BLOCK + BLOCK;
+        if (output.length - outputOffset < length) {
+            throw new ShortBufferException("Нужно " + length + " байт в выходном буфере");
+        }
+        System.arraycopy(input, inputOffset, output, outputOffset + buffered, inputLen);
+        System.arraycopy(buffer, 0, output, outputOffset, buffered);
+        Arrays.fill(output, outputOffset + total, outputOffset + length, (byte) (length - total));
+        processBlocks(output, outputOffset, length);
+        reset();
+        return length;
+    }
+
+    // Обрабатывает целые блоки data[off, off + len) на месте
+    private void processBlocks(byte[] data, int off, int len) {
+        if (mode == Mode.ECB) {
+            if (encrypt) {
+                cipher.encrypt(data, off, len);
+            } else {
+                cipher.decrypt(data, off, len);
+            }
+            return;
+        }
+        long previous = chain;
+        if (encrypt) {
+            for (int i = off; i < off + len; i += BLOCK) {
+                previous = cipher.encryptBlock((long) LONG_BE.get(data, i) ^ previous);
+                LONG_BE.set(data, i, previous);
+            }
+        } else {
+            for (int i = off; i < off + len; i += BLOCK) {
+                long block = (long) LONG_BE.get(data, i);
+                LONG_BE.set(data, i, cipher.decryptBlock(block) ^ previous);
+                previous = block;
+            }
+        }
+        chain = previous;
+    }
+
+    /**
+     * Сколько байт вернет update для inputLen новых байт: все целые блоки,
+     * кроме последнего при расшифровании с дополнением.
+     */
+    private int updateLength(int inputLen) {
+        int total = buffered + inputLen;
+        if (mode == Mode.CTR) {
+            return inputLen;
+        }
+        int length = total / BLOCK * BLOCK;
+        if (isPadded() && !encrypt && length == total && length > 0) {
+            length -= BLOCK;
+        }
+        return length;
+    }
+
+    // Блок с номером байта index в последовательности buffer, затем input
+    private long byteBlock(byte[] input, int inputOffset, int index) {
+        long block = 0;
+        for (int k = index; k < index + BLOCK; k++) {
+            byte b = k < buffered ? buffer[k] : input[inputOffset + k - buffered];
+            block = (block << 8) | (b & 0xFF);
+        }
+        return block;
+    }
+
+    private boolean isPadded() {
+        return padding && mode != Mode.CTR;
+    }
+
+    private byte[] scratch() {
+        if (scratch == null) {
+            scratch = new byte[SCRATCH_SIZE + BLOCK];
+        }
+        return scratch;
+    }
+
+    // Возврат к состоянию сразу после init, как требует doFinal
+    private void reset() {
+        buffered = 0;
+        position = 0;
+        chain = iv == null ? 0 : (long) LONG_BE.get(iv, 0);
+    }
+
+    private void checkInitialized() {
+        if (cipher == null) {
+            throw new IllegalStateException("Cipher не инициализирован");
+        }
+    }
+
+    private static byte[] rawKey(Key key) throws InvalidKeyException {
+        byte[] encoded = key == null ? null : key.getEncoded();
+        if (encoded == null || encoded.length == 0 || !"RAW".equalsIgnoreCase(key.getFormat())) {
+            throw new InvalidKeyException("Нужен непустой ключ в формате RAW");
+        }
+        return encoded;
+    }
+}
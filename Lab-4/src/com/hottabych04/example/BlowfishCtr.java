@@ -0,0 +1,170 @@
+package com.hottabych04.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Режим счётчика: блок гаммы с номером i равен E(iv + i), данные складываются с гаммой
+ * по XOR, поэтому шифрование и расшифрование совпадают, а любой диапазон файла
+ * обрабатывается независимо от остальных.
+ * Формат файла: 8 байт iv (big-endian), затем шифртекст той же длины, что и открытый текст.
+ */
+public class BlowfishCtr {
+    public static final int IV_SIZE = 8;
+    // Размер буфера одного чтения/записи
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    // Файлы больше этого размера делятся на диапазоны для параллельной обработки
+    private static final long PARALLEL_THRESHOLD = 8L * 1024 * 1024;
+    // Размер диапазона одной задачи, кратен размеру блока
+    private static final long RANGE_SIZE = 8L * 1024 * 1024;
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Blowfish cipher;
+    private final long iv;
+
+    public BlowfishCtr(Blowfish cipher, long iv) {
+        this.cipher = cipher;
+        this.iv = iv;
+    }
+
+    /**
+     * Складывает data[off, off + len) с гаммой, начиная с байта position потока.
+     * Экземпляр не хранит состояния, поэтому вызовы из разных потоков независимы.
+     */
+    public void apply(long position, byte[] data, int off, int len) {
+        long block = position / Blowfish.BLOCK_SIZE;
+        int skip = (int) (position % Blowfish.BLOCK_SIZE);
+        int end = off + len;
+
+        // Начало внутри блока
+        if (skip != 0 && off < end) {
+            long keystream = cipher.encryptBlock(iv + block++);
+            for (int k = skip; k < Blowfish.BLOCK_SIZE && off < end; k++) {
+                data[off++] ^= (byte) (keystream >>> (56 - 8 * k));
+            }
+        }
+        for (; off + Blowfish.BLOCK_SIZE <= end; off += Blowfish.BLOCK_SIZE) {
+            LONG_BE.set(data, off, (long) LONG_BE.get(data, off) ^ cipher.encryptBlock(iv + block++));
+        }
+        // Неполный последний блок
+        if (off < end) {
+            long keystream = cipher.encryptBlock(iv + block);
+            for (int k = 0; off < end; k++) {
+                data[off++] ^= (byte) (keystream >>> (56 - 8 * k));
+            }
+        }
+    }
+
+    public static void encryptFile(Blowfish cipher, Path inputFile, Path outputFile, ForkJoinPool pool) throws IOException {
+        long iv = new SecureRandom().nextLong();
+        try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(IV_SIZE).putLong(0, iv);
+            while (header.hasRemaining()) {
+                output.write(header, header.position());
+            }
+            new BlowfishCtr(cipher, iv).process(input, 0, output, IV_SIZE, input.size(), pool);
+        }
+    }
+
+    public static void decryptFile(Blowfish cipher, Path inputFile, Path outputFile, ForkJoinPool pool) throws IOException {
+        try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(IV_SIZE);
+            while (header.hasRemaining()) {
+                if (input.read(header, header.position()) < 0) {
+                    throw new IOException("Файл короче заголовка CTR");
+                }
+            }
+            new BlowfishCtr(cipher, header.getLong(0)).process(input, IV_SIZE, output, 0,
+                    input.size() - IV_SIZE, pool);
+        }
+    }
+
+    // Обрабатывает size байт с позиции inputStart входа в позицию outputStart выхода
+    private void process(FileChannel input, long inputStart, FileChannel output, long outputStart,
+                         long size, ForkJoinPool pool) throws IOException {
+        if (size < PARALLEL_THRESHOLD) {
+            processRange(input, inputStart, output, outputStart, 0, size);
+            return;
+        }
+        // Выделяем место под весь выход, чтобы каждый диапазон писался в свою позицию
+        output.write(ByteBuffer.allocate(1), outputStart + size - 1);
+        try {
+            pool.invoke(new RangeTask(input, inputStart, output, outputStart, 0, size));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Диапазон [from, to) потока, смещения отсчитываются от начала данных
+    private void processRange(FileChannel input, long inputStart, FileChannel output, long outputStart,
+                              long from, long to) throws IOException {
+        byte[] data = new byte[(int) Math.min(BUFFER_SIZE, Math.max(to - from, 1))];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long position = from;
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(data.length, to - position));
+            while (buffer.hasRemaining()) {
+                if (input.read(buffer, inputStart + position + buffer.position()) < 0) {
+                    throw new IOException("Неожиданный конец файла в позиции " + (position + buffer.position()));
+                }
+            }
+            int length = buffer.position();
+            apply(position, data, 0, length);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                output.write(buffer, outputStart + position + buffer.position());
+            }
+            position += length;
+        }
+    }
+
+    private class RangeTask extends RecursiveAction {
+        private final FileChannel input;
+        private final long inputStart;
+        private final FileChannel output;
+        private final long outputStart;
+        private final long from;
+        private final long to;
+
+        RangeTask(FileChannel input, long inputStart, FileChannel output, long outputStart, long from, long to) {
+            this.input = input;
+            this.inputStart = inputStart;
+            this.output = output;
+            this.outputStart = outputStart;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= RANGE_SIZE) {
+                try {
+                    processRange(input, inputStart, output, outputStart, from, to);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+
+            long ranges = (to - from + RANGE_SIZE - 1) / RANGE_SIZE;
+            long middle = from + (ranges / 2) * RANGE_SIZE;
+            invokeAll(new RangeTask(input, inputStart, output, outputStart, from, middle),
+                    new RangeTask(input, inputStart, output, outputStart, middle, to));
+        }
+    }
+}
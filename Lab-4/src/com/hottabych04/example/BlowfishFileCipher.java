@@ -0,0 +1,120 @@
+package com.hottabych04.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Шифрование файлов в режимах CTR (параллельно) и CBC (потоково).
+ * Запуск: java BlowfishFileCipher <encrypt|decrypt> <ctr|cbc> <ключ> <вход> <выход> [потоков]
+ *         java BlowfishFileCipher bench <ключ> <вход> [потоков]
+ * В режиме bench файл шифруется во временные файлы: CTR в 1 и N потоков, CBC в 1 поток.
+ */
+public class BlowfishFileCipher {
+    public static void main(String[] args) {
+        try {
+            if (args.length >= 3 && "bench".equals(args[0])) {
+                int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+                bench(new Blowfish(args[1].getBytes(StandardCharsets.UTF_8)), Paths.get(args[2]), threads);
+                return;
+            }
+            if (args.length < 5) {
+                System.out.println("Использование: java BlowfishFileCipher <encrypt|decrypt> <ctr|cbc> <ключ> <вход> <выход> [потоков]");
+                System.out.println("               java BlowfishFileCipher bench <ключ> <вход> [потоков]");
+                return;
+            }
+
+            boolean encrypt = "encrypt".equals(args[0]);
+            if (!encrypt && !"decrypt".equals(args[0])) {
+                System.out.println("Неизвестная операция: " + args[0]);
+                return;
+            }
+            Blowfish cipher = new Blowfish(args[2].getBytes(StandardCharsets.UTF_8));
+            Path input = Paths.get(args[3]);
+            Path output = Paths.get(args[4]);
+            int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+            long start = System.nanoTime();
+            if ("ctr".equals(args[1])) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    if (encrypt) {
+                        BlowfishCtr.encryptFile(cipher, input, output, pool);
+                    } else {
+                        BlowfishCtr.decryptFile(cipher, input, output, pool);
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            } else if ("cbc".equals(args[1])) {
+                processCbc(cipher, input, output, encrypt);
+                threads = 1;
+            } else {
+                System.out.println("Неизвестный режим: " + args[1]);
+                return;
+            }
+            report(args[1].toUpperCase() + ", потоков: " + threads, Files.size(input), System.nanoTime() - start);
+        } catch (IOException e) {
+            System.err.println("Ошибка: " + e.getMessage());
+        }
+    }
+
+    static void processCbc(Blowfish cipher, Path input, Path output, boolean encrypt) throws IOException {
+        try (InputStream in = encrypt
+                ? new BufferedInputStream(Files.newInputStream(input))
+                : new BlowfishCbcInputStream(new BufferedInputStream(Files.newInputStream(input)), cipher);
+             OutputStream out = encrypt
+                     ? new BlowfishCbcOutputStream(new BufferedOutputStream(Files.newOutputStream(output)), cipher)
+                     : new BufferedOutputStream(Files.newOutputStream(output))) {
+            in.transferTo(out);
+        }
+    }
+
+    private static void bench(Blowfish cipher, Path input, int threads) throws IOException {
+        long size = Files.size(input);
+        Path encrypted = Files.createTempFile("blowfish", ".enc");
+        Path decrypted = Files.createTempFile("blowfish", ".dec");
+        try {
+            // Прогрев JIT на первом проходе
+            measureCtr(cipher, input, encrypted, 1);
+
+            report("CTR, потоков: 1", size, measureCtr(cipher, input, encrypted, 1));
+            report("CTR, потоков: " + threads, size, measureCtr(cipher, input, encrypted, threads));
+
+            long start = System.nanoTime();
+            processCbc(cipher, input, encrypted, true);
+            report("CBC, потоков: 1", size, System.nanoTime() - start);
+
+            processCbc(cipher, encrypted, decrypted, false);
+            if (Files.mismatch(input, decrypted) != -1) {
+                System.out.println("Ошибка: расшифрованный CBC файл отличается от исходного");
+            }
+        } finally {
+            Files.deleteIfExists(encrypted);
+            Files.deleteIfExists(decrypted);
+        }
+    }
+
+    private static long measureCtr(Blowfish cipher, Path input, Path output, int threads) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            BlowfishCtr.encryptFile(cipher, input, output, pool);
+            return System.nanoTime() - start;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void report(String label, long bytes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-20s %10.3f с %10.1f МБ/с%n", label, seconds, bytes / seconds / (1024 * 1024));
+    }
+}
@@ -0,0 +1,142 @@
+package com.hottabych04.example;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный кэш готовых экземпляров Blowfish по ключу. Экземпляр после конструктора
+ * не меняется, поэтому один и тот же объект безопасно отдавать нескольким потокам.
+ *
+ * В кэше хранится SHA-256 ключа, а не сам ключ. Кэш разбит на сегменты, выбираемые
+ * по дайджесту; каждый сегмент - LinkedHashMap в порядке доступа под своей блокировкой.
+ * Число записей ограничено общим счетчиком, а не вместимостью сегментов, поэтому
+ * неравномерное распределение дайджестов не вытесняет ключи раньше времени.
+ * При переполнении вытесняется давно не использованный ключ сегмента, в который шла
+ * вставка, а если в нем только новый ключ - самый старый ключ следующего непустого сегмента.
+ * Расписание ключа строится вне блокировки, поэтому промахи в разных потоках не ждут друг друга.
+ */
+public class BlowfishKeyCache {
+    private static final int MAX_SEGMENTS = 16;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    });
+
+    private final int maxEntries;
+    private final Segment[] segments;
+    // Записей во всех сегментах; меняется только под блокировкой сегмента
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BlowfishKeyCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        // В маленьком кэше сегментов не больше, чем записей, и вытеснение ближе к точному LRU
+        this.segments = new Segment[Math.min(MAX_SEGMENTS, maxEntries)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    // Экземпляр для ключа: из кэша или новый, который сразу кладется в кэш
+    public Blowfish get(byte[] key) {
+        ByteBuffer digest = ByteBuffer.wrap(SHA256.get().digest(key));
+        int index = (digest.getInt(0) & 0x7FFFFFFF) % segments.length;
+        Segment segment = segments[index];
+
+        Blowfish cipher;
+        synchronized (segment) {
+            cipher = segment.get(digest);
+        }
+        if (cipher != null) {
+            hits.increment();
+            return cipher;
+        }
+
+        misses.increment();
+        Blowfish created = new Blowfish(key);
+        synchronized (segment) {
+            // Другой поток мог успеть добавить тот же ключ, тогда отдается его экземпляр
+            cipher = segment.putIfAbsent(digest, created);
+            if (cipher != null) {
+                return cipher;
+            }
+            if (size.incrementAndGet() > maxEntries && segment.size() > 1) {
+                evictEldest(segment);
+            }
+        }
+        // В сегменте только новый ключ: место освобождается в других сегментах
+        for (int i = 1; i < segments.length && size.get() > maxEntries; i++) {
+            Segment other = segments[(index + i) % segments.length];
+            synchronized (other) {
+                if (size.get() > maxEntries && !other.isEmpty()) {
+                    evictEldest(other);
+                }
+            }
+        }
+        return created;
+    }
+
+    // Вызывается под блокировкой segment
+    private void evictEldest(Segment segment) {
+        Iterator<ByteBuffer> eldest = segment.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+        size.decrementAndGet();
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size.addAndGet(-segment.size());
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("попаданий: %d, промахов: %d, вытеснений: %d, записей: %d",
+                getHits(), getMisses(), getEvictions(), size());
+    }
+
+    private static class Segment extends LinkedHashMap<ByteBuffer, Blowfish> {
+        Segment() {
+            super(16, 0.75f, true);
+        }
+    }
+}
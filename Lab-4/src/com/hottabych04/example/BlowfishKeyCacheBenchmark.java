@@ -0,0 +1,69 @@
+package com.hottabych04.example;
+
+import java.util.Random;
+
+/**
+ * Задержка шифрования короткого сообщения со сменой ключа: новый экземпляр Blowfish
+ * на каждое сообщение против BlowfishKeyCache. Ключи выбираются случайно из набора,
+ * который может быть больше кэша, тогда видны вытеснения.
+ * Запуск: java BlowfishKeyCacheBenchmark [ключей] [размер кэша] [байт в сообщении]
+ */
+public class BlowfishKeyCacheBenchmark {
+    private static final int MESSAGES = 2_000_000;
+
+    public static void main(String[] args) {
+        int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int cacheSize = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        int messageSize = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        Random random = new Random(1);
+        byte[][] keys = new byte[keyCount][16];
+        for (byte[] key : keys) {
+            random.nextBytes(key);
+        }
+        int[] order = new int[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            order[i] = random.nextInt(keyCount);
+        }
+        byte[] message = new byte[messageSize];
+
+        // Каждый режим прогоняется дважды, в зачет идет второй проход
+        BlowfishKeyCache cache = new BlowfishKeyCache(cacheSize);
+        double plain = 0;
+        double cached = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            cache.clear();
+            plain = measure(() -> {
+                for (int i : order) {
+                    new Blowfish(keys[i]).encrypt(message, 0, messageSize);
+                }
+            });
+            cached = measure(() -> {
+                for (int i : order) {
+                    cache.get(keys[i]).encrypt(message, 0, messageSize);
+                }
+            });
+        }
+
+        System.out.printf("Ключей: %d, размер кэша: %d, сообщение: %d байт%n", keyCount, cacheSize, messageSize);
+        System.out.printf("%-22s %10.3f мкс%n", "new Blowfish(key)", plain);
+        System.out.printf("%-22s %10.3f мкс %9.2fx%n", "BlowfishKeyCache", cached, plain / cached);
+        System.out.println("Кэш (второй проход): " + cache);
+
+        // Проверка: экземпляр из кэша шифрует так же, как новый
+        byte[] expected = new byte[messageSize];
+        byte[] actual = new byte[messageSize];
+        new Blowfish(keys[0]).encrypt(expected, 0, messageSize);
+        cache.get(keys[0]).encrypt(actual, 0, messageSize);
+        if (!java.util.Arrays.equals(expected, actual)) {
+            System.out.println("Ошибка: результат из кэша отличается");
+        }
+    }
+
+    // Среднее время на сообщение в микросекундах
+    private static double measure(Runnable run) {
+        long start = System.nanoTime();
+        run.run();
+        return (System.nanoTime() - start) / 1e3 / MESSAGES;
+    }
+}
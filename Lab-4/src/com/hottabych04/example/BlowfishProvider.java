@@ -0,0 +1,22 @@
+package com.hottabych04.example;
+
+import java.security.Provider;
+
+/**
+ * JCA-провайдер для этого Blowfish:
+ * Cipher.getInstance("Blowfish/CBC/PKCS5Padding", new BlowfishProvider()).
+ * Поддерживаются режимы ECB, CBC и CTR, дополнение NoPadding и PKCS5Padding.
+ * Расписание ключа отличается от стандартного, поэтому шифртекст не совпадает
+ * с шифртекстом провайдера SunJCE для того же ключа.
+ */
+public class BlowfishProvider extends Provider {
+    public static final String NAME = "HottabychBlowfish";
+
+    public BlowfishProvider() {
+        super(NAME, "1.0", "Blowfish (ECB, CBC, CTR; NoPadding, PKCS5Padding)");
+        put("Cipher.Blowfish", BlowfishCipherSpi.class.getName());
+        put("Cipher.Blowfish SupportedModes", "ECB|CBC|CTR");
+        put("Cipher.Blowfish SupportedPaddings", "NOPADDING|PKCS5PADDING");
+        put("Cipher.Blowfish SupportedKeyFormats", "RAW");
+    }
+}
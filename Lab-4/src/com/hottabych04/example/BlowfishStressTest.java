@@ -0,0 +1,95 @@
+package com.hottabych04.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка независимости экземпляров: много ключей в нескольких потоках одновременно.
+ * Эталонные шифртексты считаются заранее в одном потоке, затем потоки создают экземпляры
+ * заново, шифруют и расшифровывают вперемешку и сравнивают с эталоном.
+ * Запуск: java BlowfishStressTest [потоков] [ключей] [блоков на ключ]
+ */
+public class BlowfishStressTest {
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int keyCount = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int blocks = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        Random random = new Random(2024);
+        byte[][] keys = new byte[keyCount][];
+        int[][] plain = new int[keyCount][];
+        int[][] expected = new int[keyCount][];
+        for (int k = 0; k < keyCount; k++) {
+            keys[k] = new byte[4 + random.nextInt(53)];
+            random.nextBytes(keys[k]);
+            plain[k] = new int[2 * blocks];
+            expected[k] = new int[2 * blocks];
+            Blowfish reference = new Blowfish(keys[k]);
+            for (int i = 0; i < 2 * blocks; i += 2) {
+                plain[k][i] = random.nextInt();
+                plain[k][i + 1] = random.nextInt();
+                int[] block = reference.encryptBlock(plain[k][i], plain[k][i + 1]);
+                expected[k][i] = block[0];
+                expected[k][i + 1] = block[1];
+            }
+        }
+
+        // Общие экземпляры используются всеми потоками, собственные создаются в каждом раунде
+        Blowfish[] shared = new Blowfish[keyCount];
+        for (int k = 0; k < keyCount; k++) {
+            shared[k] = new Blowfish(keys[k]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                Random order = new Random(seed);
+                int errors = 0;
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (int n = 0; n < keyCount; n++) {
+                        int k = order.nextInt(keyCount);
+                        Blowfish cipher = order.nextBoolean() ? shared[k] : new Blowfish(keys[k]);
+                        for (int i = 0; i < 2 * blocks; i += 2) {
+                            int[] block = cipher.encryptBlock(plain[k][i], plain[k][i + 1]);
+                            if (block[0] != expected[k][i] || block[1] != expected[k][i + 1]) {
+                                errors++;
+                            }
+                            int[] back = cipher.decryptBlock(block[0], block[1]);
+                            if (back[0] != plain[k][i] || back[1] != plain[k][i + 1]) {
+                                errors++;
+                            }
+                        }
+                    }
+                }
+                return errors;
+            }));
+        }
+        start.countDown();
+
+        int errors = 0;
+        for (Future<Integer> result : results) {
+            errors += result.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        long operations = 2L * threads * ROUNDS * keyCount * blocks;
+        if (errors > 0) {
+            System.out.println("Ошибка: " + errors + " неверных блоков из " + operations);
+            System.exit(1);
+        }
+        System.out.println("Успешно: " + operations + " операций с " + keyCount + " ключами в " + threads + " потоках");
+    }
+}
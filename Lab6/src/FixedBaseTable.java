@@ -0,0 +1,168 @@
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Возведение фиксированного основания в степень по предвычисленной таблице.
+ * Показатель записывается цифрами по window бит: e = sum d_i * 2^(window * i),
+ * а таблица хранит base^(d * 2^(window * i)) для всех i и d != 0. Тогда
+ * base^e - произведение не более чем digits элементов таблицы, без возведений в квадрат.
+ * Произведения приводятся по модулю методом Барретта: два умножения и сдвиги
+ * вместо деления BigInteger.mod, которое в несколько раз медленнее умножения.
+ * Таблица после построения не меняется, поэтому одну таблицу используют все потоки.
+ */
+public class FixedBaseTable {
+    // Окно по умолчанию: 2^8 - 1 элементов на цифру, для 256-битного q таблица около 2 МБ при 2048-битном p
+    public static final int DEFAULT_WINDOW = 8;
+
+    private static final ConcurrentHashMap<Key, FixedBaseTable> SHARED = new ConcurrentHashMap<>();
+
+    private final BigInteger base;
+    private final BigInteger modulus;
+    private final int maxBits;
+    private final int window;
+    private final int digits;
+    // Барретт: mu = floor(2^(2 * modulusBits) / modulus)
+    private final int modulusBits;
+    private final BigInteger mu;
+    // table[i][d - 1] = base^(d * 2^(window * i)) mod modulus
+    private final BigInteger[][] table;
+
+    /**
+     * Таблица для показателей длиной до maxBits бит. Построение стоит
+     * digits * (2^window - 1) умножений по модулю.
+     */
+    public FixedBaseTable(BigInteger base, BigInteger modulus, int maxBits, int window) {
+        if (window < 1 || window > 16) {
+            throw new IllegalArgumentException("Размер окна должен быть от 1 до 16: " + window);
+        }
+        this.base = base.mod(modulus);
+        this.modulus = modulus;
+        this.modulusBits = modulus.bitLength();
+        this.mu = BigInteger.ONE.shiftLeft(2 * modulusBits).divide(modulus);
+        this.maxBits = maxBits;
+        this.window = Math.min(window, Math.max(1, maxBits));
+        this.digits = (maxBits + this.window - 1) / this.window;
+        int size = (1 << this.window) - 1;
+        this.table = new BigInteger[digits][size];
+
+        BigInteger rowBase = this.base;
+        for (int i = 0; i < digits; i++) {
+            BigInteger[] row = table[i];
+            row[0] = rowBase;
+            for (int d = 1; d < size; d++) {
+                row[d] = multiply(row[d - 1], rowBase);
+            }
+            // base^(2^(window * (i + 1))) = base^((2^window - 1) * 2^(window * i)) * base^(2^(window * i))
+            rowBase = multiply(row[size - 1], rowBase);
+        }
+    }
+
+    /**
+     * Общая таблица для основания, модуля и длины показателя: строится при первом
+     * запросе, дальше возвращается тот же экземпляр.
+     */
+    public static FixedBaseTable shared(BigInteger base, BigInteger modulus, int maxBits) {
+        return SHARED.computeIfAbsent(new Key(base, modulus, maxBits),
+                key -> new FixedBaseTable(base, modulus, maxBits, DEFAULT_WINDOW));
+    }
+
+    // base^exponent mod modulus; показатели вне таблицы считаются обычным modPow
+    public BigInteger pow(BigInteger exponent) {
+        if (!fits(exponent)) {
+            return base.modPow(exponent, modulus);
+        }
+        BigInteger result = accumulate(null, exponent);
+        return result == null ? BigInteger.ONE.mod(modulus) : result;
+    }
+
+    /**
+     * a^ea * b^eb по двум таблицам с общим модулем. Множители из обеих таблиц
+     * собираются в одно произведение, как в методе Штрауса, только без возведений
+     * в квадрат: все степени двойки уже есть в таблицах.
+     */
+    public static BigInteger pow2(FixedBaseTable a, BigInteger ea, FixedBaseTable b, BigInteger eb) {
+        if (!a.modulus.equals(b.modulus)) {
+            throw new IllegalArgumentException("Таблицы построены по разным модулям");
+        }
+        if (!a.fits(ea) || !b.fits(eb)) {
+            return a.multiply(a.pow(ea), b.pow(eb));
+        }
+        BigInteger result = b.accumulate(a.accumulate(null, ea), eb);
+        return result == null ? BigInteger.ONE.mod(a.modulus) : result;
+    }
+
+    private boolean fits(BigInteger exponent) {
+        return exponent.signum() >= 0 && exponent.bitLength() <= maxBits;
+    }
+
+    // Домножает result на base^exponent; null означает 1 и возвращается для нулевого показателя
+    private BigInteger accumulate(BigInteger result, BigInteger exponent) {
+        byte[] magnitude = exponent.toByteArray();
+        for (int i = 0; i < digits; i++) {
+            int d = digit(magnitude, i * window, window);
+            if (d != 0) {
+                // Первый ненулевой множитель берется из таблицы без умножения на 1
+                result = result == null ? table[i][d - 1] : multiply(result, table[i][d - 1]);
+            }
+        }
+        return result;
+    }
+
+    // a * b mod modulus для 0 <= a, b < modulus
+    private BigInteger multiply(BigInteger a, BigInteger b) {
+        BigInteger x = a.multiply(b);
+        BigInteger estimate = x.shiftRight(modulusBits - 1).multiply(mu).shiftRight(modulusBits + 1);
+        BigInteger r = x.subtract(estimate.multiply(modulus));
+        // Оценка частного меньше точного не более чем на 2
+        while (r.compareTo(modulus) >= 0) {
+            r = r.subtract(modulus);
+        }
+        return r;
+    }
+
+    public BigInteger getBase() {
+        return base;
+    }
+
+    public int getMaxBits() {
+        return maxBits;
+    }
+
+    // Биты [from, from + count) неотрицательного числа в записи big-endian из toByteArray
+    private static int digit(byte[] magnitude, int from, int count) {
+        int value = 0;
+        for (int bit = from + count - 1; bit >= from; bit--) {
+            int index = magnitude.length - 1 - (bit >>> 3);
+            int b = index >= 0 ? (magnitude[index] >>> (bit & 7)) & 1 : 0;
+            value = (value << 1) | b;
+        }
+        return value;
+    }
+
+    private static class Key {
+        final BigInteger base;
+        final BigInteger modulus;
+        final int maxBits;
+
+        Key(BigInteger base, BigInteger modulus, int maxBits) {
+            this.base = base;
+            this.modulus = modulus;
+            this.maxBits = maxBits;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return maxBits == other.maxBits && base.equals(other.base) && modulus.equals(other.modulus);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(base, modulus, maxBits);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Проверок в секунду: цикл одиночных verify против verifyBatch в 1 и N потоков.
+ * Пакет подписан несколькими ключами, каждая FAULTY_EVERY-я подпись испорчена.
+ * Запуск: java SchnorrBatchBenchmark [подписей] [ключей] [потоков]
+ */
+public class SchnorrBatchBenchmark {
+    private static final int FAULTY_EVERY = 50;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int keyCount = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        SecureRandom random = new SecureRandom();
+
+        BigInteger[] params = SchnorrSignature.generateParameters(2048, 256, random);
+        SchnorrSignature[] signers = new SchnorrSignature[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            signers[i] = new SchnorrSignature(params[0], params[1], params[2]);
+        }
+        // Проверяющая сторона со своим ключом, подписи чужие
+        SchnorrSignature verifier = new SchnorrSignature(params[0], params[1], params[2]);
+
+        List<SchnorrSignature.BatchItem> items = new ArrayList<>();
+        boolean[] expected = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            SchnorrSignature signer = signers[i % keyCount];
+            byte[] message = ("Сообщение " + i).getBytes();
+            SchnorrSignature.Signature signature = signer.sign(message);
+            expected[i] = i % FAULTY_EVERY != FAULTY_EVERY - 1;
+            if (!expected[i]) {
+                message = ("Изменённое сообщение " + i).getBytes();
+            }
+            items.add(new SchnorrSignature.BatchItem(message, signature, signer.getPublicKey()));
+        }
+
+        // Прогрев JIT: часть пакета по одной подписи и весь пакет через verifyBatch
+        for (int i = 0; i < Math.min(count, 100); i++) {
+            SchnorrSignature.BatchItem item = items.get(i);
+            verifier.verify(item.message, item.signature, item.publicKey);
+        }
+        verifier.verifyBatch(items);
+
+        long start = System.nanoTime();
+        boolean[] single = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            SchnorrSignature.BatchItem item = items.get(i);
+            single[i] = verifier.verify(item.message, item.signature, item.publicKey);
+        }
+        double singleRate = count / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("Подписей: %d, ключей: %d, испорчено: %d%n", count, keyCount, count / FAULTY_EVERY);
+        System.out.printf("%-24s %14s %10s%n", "", "проверок/с", "Ускорение");
+        System.out.printf("%-24s %14.1f %9.2fx%n", "verify в цикле", singleRate, 1.0);
+        check(expected, single);
+
+        for (int t : new int[]{1, threads}) {
+            ForkJoinPool pool = new ForkJoinPool(t);
+            start = System.nanoTime();
+            boolean[] batch = verifier.verifyBatch(items, pool);
+            double rate = count / ((System.nanoTime() - start) / 1e9);
+            pool.shutdown();
+            System.out.printf("%-24s %14.1f %9.2fx%n", "verifyBatch, потоков: " + t, rate, rate / singleRate);
+            check(expected, batch);
+        }
+    }
+
+    private static void check(boolean[] expected, boolean[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != actual[i]) {
+                System.out.println("Ошибка: неверный результат для подписи " + i);
+                return;
+            }
+        }
+    }
+}
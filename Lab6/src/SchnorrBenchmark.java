@@ -0,0 +1,107 @@
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Задержка подписи и проверки с таблицами фиксированного основания (таблица для g
+ * и дополнительно таблица для открытого ключа y) при 2048-битном p и 256-битном q.
+ * Для сравнения те же формулы схемы считаются здесь же через g.modPow и y.modPow.
+ * Запуск: java SchnorrBenchmark [бит в p] [бит в q] [итераций]
+ */
+public class SchnorrBenchmark {
+    private static final int WARMUP = 100;
+
+    public static void main(String[] args) {
+        int pBits = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+        int qBits = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        SecureRandom random = new SecureRandom();
+
+        long start = System.nanoTime();
+        BigInteger[] params = SchnorrSignature.generateParameters(pBits, qBits, random);
+        System.out.printf("Параметры p: %d бит, q: %d бит, генерация %.1f с%n",
+                pBits, qBits, (System.nanoTime() - start) / 1e9);
+
+        BigInteger p = params[0];
+        BigInteger q = params[1];
+        BigInteger g = params[2];
+        BigInteger x = new BigInteger(q.bitLength() - 1, random).add(BigInteger.ONE);
+        start = System.nanoTime();
+        SchnorrSignature schnorr = new SchnorrSignature(p, q, g, x);
+        System.out.printf("Таблица для g: %.1f мс%n", (System.nanoTime() - start) / 1e6);
+        BigInteger y = schnorr.getPublicKey();
+        byte[] message = "Hello, Schnorr Signature!".getBytes();
+        SchnorrSignature.Signature signature = schnorr.sign(message);
+
+        // Подпись, вычисленная через modPow, должна проходить проверку класса
+        check(schnorr.verify(message, modPowSign(p, q, g, x, message, random), y));
+        check(modPowVerify(p, q, g, y, message, signature));
+
+        double signPlain = measure(iterations, () -> modPowSign(p, q, g, x, message, random));
+        double verifyPlain = measure(iterations, () -> check(modPowVerify(p, q, g, y, message, signature)));
+
+        double signTable = measure(iterations, () -> schnorr.sign(message));
+        double verifyTable = measure(iterations, () -> check(schnorr.verify(message, signature, y)));
+
+        start = System.nanoTime();
+        schnorr.precompute(y);
+        double keyTable = (System.nanoTime() - start) / 1e6;
+        double verifyKeyTable = measure(iterations, () -> check(schnorr.verify(message, signature, y)));
+
+        System.out.printf("%-26s %12s %12s%n", "", "подпись, мкс", "проверка, мкс");
+        System.out.printf("%-26s %12.1f %12.1f%n", "modPow", signPlain, verifyPlain);
+        System.out.printf("%-26s %12.1f %12.1f%n", "таблица g", signTable, verifyTable);
+        System.out.printf("%-26s %12s %12.1f%n", "таблицы g и y", "-", verifyKeyTable);
+        System.out.printf("Таблица для y: %.1f мс, окупается за %.0f проверок%n",
+                keyTable, keyTable * 1e3 / (verifyTable - verifyKeyTable));
+    }
+
+    // sign из SchnorrSignature с g.modPow вместо таблицы
+    private static SchnorrSignature.Signature modPowSign(BigInteger p, BigInteger q, BigInteger g, BigInteger x,
+                                                        byte[] message, SecureRandom random) {
+        BigInteger k = new BigInteger(q.bitLength() - 1, random).add(BigInteger.ONE);
+        BigInteger r = g.modPow(k, p);
+        BigInteger e = hash(message, r, q);
+        return new SchnorrSignature.Signature(e, k.add(x.multiply(e)).mod(q));
+    }
+
+    // verify из SchnorrSignature с g.modPow и y.modPow вместо таблиц
+    private static boolean modPowVerify(BigInteger p, BigInteger q, BigInteger g, BigInteger y,
+                                       byte[] message, SchnorrSignature.Signature signature) {
+        BigInteger rv = g.modPow(signature.s, p).multiply(y.modPow(signature.e, p)).mod(p);
+        return hash(message, rv, q).equals(signature.e);
+    }
+
+    // H(m || r): первая половина SHA-256 по модулю q, как в SchnorrSignature
+    private static BigInteger hash(byte[] message, BigInteger r, BigInteger q) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(message);
+            byte[] hash = digest.digest(r.toByteArray());
+            byte[] truncated = new byte[hash.length / 2];
+            System.arraycopy(hash, 0, truncated, 0, truncated.length);
+            return new BigInteger(1, truncated).mod(q);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    private static void check(boolean valid) {
+        if (!valid) {
+            throw new IllegalStateException("Подпись не прошла проверку");
+        }
+    }
+
+    // Среднее время одного вызова в микросекундах
+    private static double measure(int iterations, Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / 1e3 / iterations;
+    }
+}
@@ -2,6 +2,15 @@ import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 public class SchnorrSignature {
     // Параметры схемы
@@ -15,6 +24,20 @@ public class SchnorrSignature {
 
     private final SecureRandom random;
 
+    // Окно таблиц открытых ключей: около 0.7 МБ на ключ при 2048-битном p и 256-битном q
+    private static final int KEY_WINDOW = 6;
+    // Столько проверок с одним ключом в пакете окупают построение таблицы для него (см. SchnorrBenchmark)
+    private static final int KEY_TABLE_THRESHOLD = 64;
+    // Предел таблиц precompute на экземпляр: около 45 МБ при 2048-битном p
+    public static final int MAX_KEY_TABLES = 64;
+    // Малые простые для отсева кандидатов в p до проверки Миллера-Рабина
+    private static final int[] SMALL_PRIMES = smallPrimes(2000);
+
+    // Таблица для g общая для всех экземпляров с теми же p и g
+    private final FixedBaseTable gTable;
+    // Таблицы для открытых ключей, добавленных через precompute, не больше MAX_KEY_TABLES
+    private final ConcurrentHashMap<BigInteger, FixedBaseTable> keyTables = new ConcurrentHashMap<>();
+
     /**
      * Конструктор для создания новой пары ключей
      */
@@ -23,6 +46,7 @@ public class SchnorrSignature {
         this.q = q;
         this.g = g;
         this.random = new SecureRandom();
+        this.gTable = FixedBaseTable.shared(g, p, q.bitLength());
 
         // Генерация приватного ключа
         this.privateKey = new BigInteger(q.bitLength() - 1, random).add(BigInteger.ONE);
@@ -30,7 +54,7 @@ public class SchnorrSignature {
         // Вычисление публичного ключа: y = g^(-x) mod p
         // Эквивалентно y = g^(q-x) mod p, так как g^q = 1 mod p
         BigInteger exponent = q.subtract(privateKey).mod(q);
-        this.publicKey = g.modPow(exponent, p);
+        this.publicKey = gTable.pow(exponent);
     }
 
     /**
@@ -42,10 +66,77 @@ public class SchnorrSignature {
         this.g = g;
         this.privateKey = privateKey;
         this.random = new SecureRandom();
+        this.gTable = FixedBaseTable.shared(g, p, q.bitLength());
 
         // Вычисление публичного ключа
         BigInteger exponent = q.subtract(privateKey).mod(q);
-        this.publicKey = g.modPow(exponent, p);
+        this.publicKey = gTable.pow(exponent);
+    }
+
+    /**
+     * Генерация параметров: q - простое из qBits бит, p = 2qm + 1 - простое из pBits бит,
+     * g = h^((p-1)/q) mod p != 1. Возвращает {p, q, g}.
+     */
+    public static BigInteger[] generateParameters(int pBits, int qBits, SecureRandom random) {
+        BigInteger q = BigInteger.probablePrime(qBits, random);
+        BigInteger twoQ = q.shiftLeft(1);
+        BigInteger p;
+        do {
+            BigInteger x = new BigInteger(pBits, random).setBit(pBits - 1);
+            p = x.subtract(x.mod(twoQ)).add(BigInteger.ONE);
+        } while (p.bitLength() != pBits || hasSmallFactor(p) || !p.isProbablePrime(64));
+
+        BigInteger cofactor = p.subtract(BigInteger.ONE).divide(q);
+        BigInteger g;
+        BigInteger h = BigInteger.TWO;
+        while ((g = h.modPow(cofactor, p)).equals(BigInteger.ONE)) {
+            h = h.add(BigInteger.ONE);
+        }
+        return new BigInteger[]{p, q, g};
+    }
+
+    private static boolean hasSmallFactor(BigInteger n) {
+        for (int prime : SMALL_PRIMES) {
+            if (n.mod(BigInteger.valueOf(prime)).signum() == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Нечетные простые меньше limit (решето Эратосфена)
+    private static int[] smallPrimes(int limit) {
+        boolean[] composite = new boolean[limit];
+        int count = 0;
+        int[] primes = new int[limit];
+        for (int i = 3; i < limit; i += 2) {
+            if (!composite[i]) {
+                primes[count++] = i;
+                for (int j = i * i; j < limit; j += 2 * i) {
+                    composite[j] = true;
+                }
+            }
+        }
+        return Arrays.copyOf(primes, count);
+    }
+
+    /**
+     * Строит таблицу для открытого ключа, который будет проверяться многократно.
+     * Последующие verify с этим ключом считают y^e по таблице вместо modPow.
+     * Таблиц не больше MAX_KEY_TABLES; возвращает false, если предел достигнут
+     * и таблица не построена. Ненужные таблицы освобождает release.
+     */
+    public synchronized boolean precompute(BigInteger publicKey) {
+        if (!keyTables.containsKey(publicKey) && keyTables.size() >= MAX_KEY_TABLES) {
+            return false;
+        }
+        keyTables.computeIfAbsent(publicKey, y -> new FixedBaseTable(y, p, q.bitLength(), KEY_WINDOW));
+        return true;
+    }
+
+    // Удаляет таблицу, построенную precompute для этого ключа
+    public synchronized void release(BigInteger publicKey) {
+        keyTables.remove(publicKey);
     }
 
     /**
@@ -56,7 +147,7 @@ public class SchnorrSignature {
         BigInteger k = new BigInteger(q.bitLength() - 1, random).add(BigInteger.ONE);
 
         // Вычисление r = g^k mod p
-        BigInteger r = g.modPow(k, p);
+        BigInteger r = gTable.pow(k);
 
         // Вычисление e = H(m || r)
         BigInteger e = hash(concatenate(message, r.toByteArray()));
@@ -71,6 +162,11 @@ public class SchnorrSignature {
      * Проверка подписи
      */
     public boolean verify(byte[] message, Signature signature, BigInteger publicKey) {
+        return verify(message, signature, publicKey, keyTables.get(publicKey));
+    }
+
+    // keyTable - таблица для publicKey или null, если y^e считается через modPow
+    private boolean verify(byte[] message, Signature signature, BigInteger publicKey, FixedBaseTable keyTable) {
         BigInteger e = signature.e;
         BigInteger s = signature.s;
 
@@ -80,7 +176,12 @@ public class SchnorrSignature {
         }
 
         // Вычисление rv = g^s * y^e mod p
-        BigInteger rv = g.modPow(s, p).multiply(publicKey.modPow(e, p)).mod(p);
+        BigInteger rv;
+        if (keyTable != null) {
+            rv = FixedBaseTable.pow2(gTable, s, keyTable, e);
+        } else {
+            rv = gTable.pow(s).multiply(publicKey.modPow(e, p)).mod(p);
+        }
 
         // Вычисление ev = H(m || rv)
         BigInteger ev = hash(concatenate(message, rv.toByteArray()));
@@ -89,6 +190,98 @@ public class SchnorrSignature {
         return ev.equals(e);
     }
 
+    public boolean[] verifyBatch(List<BatchItem> items) {
+        return verifyBatch(items, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Проверка пакета подписей, result[i] - результат для items.get(i).
+     * В этой схеме e = H(m || r), а r в подпись не входит, поэтому пакет нельзя проверить
+     * одним уравнением по случайной линейной комбинации: каждая подпись проверяется
+     * отдельно, и результат сразу известен для каждого элемента. Проверки идут параллельно.
+     * Для ключей, которые встречаются в пакете не реже KEY_TABLE_THRESHOLD раз, на время
+     * пакета строятся таблицы, и g^s * y^e считается одним произведением по двум таблицам.
+     */
+    public boolean[] verifyBatch(List<BatchItem> items, ForkJoinPool pool) {
+        Map<BigInteger, Integer> counts = new HashMap<>();
+        for (BatchItem item : items) {
+            counts.merge(item.publicKey, 1, Integer::sum);
+        }
+
+        Map<BigInteger, FixedBaseTable> tables = new ConcurrentHashMap<>();
+        List<BigInteger> frequent = new ArrayList<>();
+        for (Map.Entry<BigInteger, Integer> entry : counts.entrySet()) {
+            FixedBaseTable table = keyTables.get(entry.getKey());
+            if (table != null) {
+                tables.put(entry.getKey(), table);
+            } else if (entry.getValue() >= KEY_TABLE_THRESHOLD) {
+                frequent.add(entry.getKey());
+            }
+        }
+        forEach(pool, frequent.size(), i -> {
+            BigInteger y = frequent.get(i);
+            tables.put(y, new FixedBaseTable(y, p, q.bitLength(), KEY_WINDOW));
+        });
+
+        boolean[] result = new boolean[items.size()];
+        forEach(pool, items.size(), i -> {
+            BatchItem item = items.get(i);
+            result[i] = verify(item.message, item.signature, item.publicKey, tables.get(item.publicKey));
+        });
+        return result;
+    }
+
+    // Выполняет operation для индексов 0..count-1 в пуле ForkJoin
+    private static void forEach(ForkJoinPool pool, int count, IntConsumer operation) {
+        if (count == 1) {
+            operation.accept(0);
+        } else if (count > 1) {
+            pool.invoke(new IndexTask(0, count, operation));
+        }
+    }
+
+    private static class IndexTask extends RecursiveAction {
+        // Одна проверка занимает сотни микросекунд, поэтому задачи делятся до нескольких индексов
+        private static final int MIN_PER_TASK = 4;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer operation;
+
+        IndexTask(int from, int to, IntConsumer operation) {
+            this.from = from;
+            this.to = to;
+            this.operation = operation;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    operation.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new IndexTask(from, middle, operation), new IndexTask(middle, to, operation));
+        }
+    }
+
+    /**
+     * Элемент пакетной проверки: сообщение, подпись и открытый ключ
+     */
+    public static class BatchItem {
+        public final byte[] message;
+        public final Signature signature;
+        public final BigInteger publicKey;
+
+        public BatchItem(byte[] message, Signature signature, BigInteger publicKey) {
+            this.message = message;
+            this.signature = signature;
+            this.publicKey = publicKey;
+        }
+    }
+
     /**
      * Класс представляющий подпись
      */